@@ -0,0 +1,23 @@
+package com.pleasenote.config;
+
+import com.pleasenote.revision.FileContentStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Keeps large blob bodies as files under {@code revisions.content-store.path}
+ * when it is set; without it every body stays in Postgres.
+ */
+@Configuration
+public class ContentStoreConfig {
+
+    @Bean
+    @ConditionalOnProperty("revisions.content-store.path")
+    public FileContentStore fileContentStore(@Value("${revisions.content-store.path}") Path path) {
+        return new FileContentStore(path);
+    }
+}
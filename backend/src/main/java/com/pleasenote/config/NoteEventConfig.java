@@ -0,0 +1,28 @@
+package com.pleasenote.config;
+
+import com.pleasenote.events.FileNoteEventSink;
+import com.pleasenote.events.NoteEventSink;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Path;
+
+/**
+ * Publishes to a JSON-lines file at {@code events.file.path} unless another
+ * {@link NoteEventSink} bean (e.g. a Kafka producer) is defined.
+ */
+@Configuration
+@ConditionalOnProperty(name = "events.enabled", havingValue = "true")
+public class NoteEventConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(NoteEventSink.class)
+    public NoteEventSink fileNoteEventSink(@Value("${events.file.path:note-events.jsonl}") Path path,
+                                           JsonMapper jsonMapper) {
+        return new FileNoteEventSink(path, jsonMapper);
+    }
+}
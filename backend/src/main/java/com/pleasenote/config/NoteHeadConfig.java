@@ -0,0 +1,21 @@
+package com.pleasenote.config;
+
+import com.pleasenote.service.LocalNoteHeadChannel;
+import com.pleasenote.service.NoteHeadChannel;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Keeps note head caches coherent within this instance only, unless another
+ * {@link NoteHeadChannel} bean links the instances.
+ */
+@Configuration
+public class NoteHeadConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(NoteHeadChannel.class)
+    public NoteHeadChannel localNoteHeadChannel() {
+        return new LocalNoteHeadChannel();
+    }
+}
@@ -1,5 +1,6 @@
 package com.pleasenote.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -8,8 +9,16 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 @Configuration
 public class PasswordEncoderConfig {
 
+    public static final int DEFAULT_BCRYPT_STRENGTH = 10;
+
+    /**
+     * Raising {@code security.password.bcrypt-strength} takes effect for new hashes
+     * immediately; existing ones are upgraded on each user's next login.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+        @Value("${security.password.bcrypt-strength:" + DEFAULT_BCRYPT_STRENGTH + "}") int strength
+    ) {
+        return new BCryptPasswordEncoder(strength);
     }
 }
@@ -0,0 +1,45 @@
+package com.pleasenote.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Concurrency limits for {@code spring.threads.virtual.enabled=true}.
+ *
+ * On virtual threads Tomcat's pool no longer caps how many requests run at
+ * once, so the connection pool is bounded directly: at most
+ * {@code datasource.max-concurrency} callers (default the Hikari pool size) hold
+ * a connection, and the rest park cheaply on a fair semaphore instead of timing
+ * out inside Hikari. Password hashing is already bounded by
+ * {@link com.pleasenote.security.PasswordHasher}'s own pool.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor concurrencyLimits(
+        @Value("${datasource.max-concurrency:0}") int dataSourcePermits,
+        @Value("${datasource.acquire-timeout:30s}") Duration acquireTimeout
+    ) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof BoundedDataSource)) {
+                    int permits = dataSourcePermits > 0 ? dataSourcePermits
+                        : dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10;
+                    return new BoundedDataSource(dataSource, permits, acquireTimeout);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -3,34 +3,47 @@ package com.pleasenote.controller;
 import com.pleasenote.model.User;
 import com.pleasenote.repository.UserRepository;
 import com.pleasenote.security.JwtService;
+import com.pleasenote.security.LoginRateLimiter;
+import com.pleasenote.security.PasswordHasher;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/auth")
 public class AuthController {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final LoginRateLimiter rateLimiter;
     private final JwtService jwtService;
 
-    public AuthController(UserRepository userRepository, PasswordEncoder passwordEncoder, JwtService jwtService) {
+    public AuthController(UserRepository userRepository, PasswordHasher passwordHasher,
+                          LoginRateLimiter rateLimiter, JwtService jwtService) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
+        this.rateLimiter = rateLimiter;
         this.jwtService = jwtService;
     }
 
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody Map<String, String> body) {
+    public ResponseEntity<?> register(@RequestBody Map<String, String> body, HttpServletRequest request) {
         String username = body.get("username");
         String email = body.get("email");
         String password = body.get("password");
 
+        Duration wait = rateLimiter.acquire(null, request.getRemoteAddr());
+        if (!wait.isZero()) {
+            return tooManyAttempts(wait);
+        }
+
         if (userRepository.findByUsername(username).isPresent()) {
             return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Username already taken"));
         }
@@ -41,7 +54,11 @@ public class AuthController {
         User user = new User();
         user.setUsername(username);
         user.setEmail(email);
-        user.setPasswordHash(passwordEncoder.encode(password));
+        try {
+            user.setPasswordHash(passwordHasher.encode(password));
+        } catch (RejectedExecutionException e) {
+            return hashingSaturated();
+        }
         User saved = userRepository.save(user);
 
         String token = jwtService.generateToken(saved.getId(), saved.getUsername());
@@ -49,16 +66,46 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody Map<String, String> body) {
+    public ResponseEntity<?> login(@RequestBody Map<String, String> body, HttpServletRequest request) {
         String username = body.get("username");
         String password = body.get("password");
 
+        Duration wait = rateLimiter.acquire(username, request.getRemoteAddr());
+        if (!wait.isZero()) {
+            return tooManyAttempts(wait);
+        }
+
         Optional<User> user = userRepository.findByUsername(username);
-        if (user.isEmpty() || !passwordEncoder.matches(password, user.get().getPasswordHash())) {
+        boolean matches;
+        try {
+            matches = user.isPresent() && passwordHasher.matches(password, user.get().getPasswordHash());
+        } catch (RejectedExecutionException e) {
+            return hashingSaturated();
+        }
+        if (!matches) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Invalid credentials"));
         }
 
+        // Bring hashes made before a cost increase up to the current cost
+        String currentHash = user.get().getPasswordHash();
+        if (passwordHasher.needsRehash(currentHash)) {
+            Long id = user.get().getId();
+            passwordHasher.rehash(password, newHash -> userRepository.replacePasswordHash(id, currentHash, newHash));
+        }
+
         String token = jwtService.generateToken(user.get().getId(), user.get().getUsername());
         return ResponseEntity.ok(Map.of("accessToken", token));
     }
+
+    private static ResponseEntity<?> tooManyAttempts(Duration wait) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, wait.toSeconds() + 1)))
+            .body(Map.of("error", "Too many attempts, try again later"));
+    }
+
+    private static ResponseEntity<?> hashingSaturated() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .body(Map.of("error", "Server busy, try again later"));
+    }
 }
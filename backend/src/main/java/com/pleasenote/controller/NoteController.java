@@ -1,133 +1,588 @@
 package com.pleasenote.controller;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.pleasenote.events.NoteChangeBroadcaster;
 import com.pleasenote.model.Note;
-import com.pleasenote.model.NoteRevision;
-import com.pleasenote.model.User;
+import com.pleasenote.repository.NoteListing;
 import com.pleasenote.repository.NoteRepository;
-import com.pleasenote.repository.NoteRevisionRepository;
-import com.pleasenote.repository.UserRepository;
+import com.pleasenote.repository.NoteSearchHit;
+import com.pleasenote.revision.RevisionContent;
+import com.pleasenote.revision.RevisionDiff;
+import com.pleasenote.revision.RevisionHistory;
+import com.pleasenote.revision.ThreeWayMerge;
+import com.pleasenote.security.AuthenticatedUser;
+import com.pleasenote.service.NoteCommitService;
+import com.pleasenote.service.NoteCommitService.CommitResult;
+import com.pleasenote.service.NoteHeadCache;
+import com.pleasenote.service.NoteSearchService;
+import com.pleasenote.service.NoteSyncService;
+import com.pleasenote.service.NoteSyncService.SyncItem;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/notes")
 public class NoteController {
 
+    public static final int MAX_LIST_LIMIT = 100;
+    public static final int MAX_SEARCH_LIMIT = 100;
+    public static final int MAX_SYNC_ITEMS = 500;
+
+    /**
+     * Lets clients keep tagged responses but revalidate them on every use;
+     * without it Spring Security forbids storing them at all.
+     */
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final NoteRepository noteRepository;
-    private final NoteRevisionRepository revisionRepository;
-    private final UserRepository userRepository;
+    private final RevisionHistory revisionHistory;
+    private final RevisionDiff revisionDiff;
+    private final RevisionContent revisionContent;
+    private final NoteCommitService commitService;
+    private final NoteSearchService searchService;
+    private final NoteSyncService syncService;
+    private final NoteChangeBroadcaster changeBroadcaster;
+    private final NoteHeadCache headCache;
 
-    public NoteController(NoteRepository noteRepository, NoteRevisionRepository revisionRepository, UserRepository userRepository) {
+    public NoteController(NoteRepository noteRepository, RevisionHistory revisionHistory, RevisionDiff revisionDiff,
+                          RevisionContent revisionContent, NoteCommitService commitService, NoteSearchService searchService,
+                          NoteSyncService syncService, NoteChangeBroadcaster changeBroadcaster,
+                          NoteHeadCache headCache) {
         this.noteRepository = noteRepository;
-        this.revisionRepository = revisionRepository;
-        this.userRepository = userRepository;
+        this.revisionHistory = revisionHistory;
+        this.revisionDiff = revisionDiff;
+        this.revisionContent = revisionContent;
+        this.commitService = commitService;
+        this.searchService = searchService;
+        this.syncService = syncService;
+        this.changeBroadcaster = changeBroadcaster;
+        this.headCache = headCache;
+    }
+
+    private AuthenticatedUser getCurrentUser() {
+        return (AuthenticatedUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    }
+
+    /**
+     * The caller's notes, most recently updated first, from the denormalized
+     * head columns on notes. Pass {@code nextCursor} back as {@code cursor} for
+     * the next page; it is null on the last one.
+     */
+    @GetMapping
+    public ResponseEntity<?> listNotes(@RequestParam(required = false) String cursor,
+                                       @RequestParam(defaultValue = "50") int limit) {
+        AuthenticatedUser user = getCurrentUser();
+
+        if (limit < 1 || limit > MAX_LIST_LIMIT) {
+            return ResponseEntity.badRequest().body(CommitError.of(
+                "limit must be between 1 and " + MAX_LIST_LIMIT));
+        }
+
+        List<NoteListing> rows;
+        if (cursor == null) {
+            rows = noteRepository.findListing(user.id(), Limit.of(limit + 1));
+        } else {
+            OffsetDateTime updatedAt;
+            long noteId;
+            try {
+                String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",");
+                updatedAt = Instant.parse(position[0]).atOffset(ZoneOffset.UTC);
+                noteId = Long.parseLong(position[1]);
+            } catch (RuntimeException e) {
+                return ResponseEntity.badRequest().body(CommitError.of("Invalid cursor"));
+            }
+            rows = noteRepository.findListingBefore(user.id(), updatedAt, noteId, Limit.of(limit + 1));
+        }
+
+        boolean more = rows.size() > limit;
+        List<Map<String, Object>> notes = new ArrayList<>(Math.min(rows.size(), limit));
+        for (NoteListing row : rows.subList(0, Math.min(rows.size(), limit))) {
+            Map<String, Object> note = new LinkedHashMap<>();
+            note.put("noteId", row.getId());
+            note.put("title", row.getTitle());
+            note.put("revisionId", row.getHeadRevisionId());
+            note.put("revisionNumber", row.getHeadRevisionNumber());
+            note.put("preview", row.getContentPreview());
+            note.put("updatedAt", row.getUpdatedAt());
+            notes.add(note);
+        }
+
+        String nextCursor = null;
+        if (more) {
+            NoteListing last = rows.get(limit - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                (last.getUpdatedAt().toInstant() + "," + last.getId()).getBytes(StandardCharsets.UTF_8));
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("notes", notes);
+        response.put("nextCursor", nextCursor);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Body of {@code POST /notes}.
+     */
+    public record CreateNoteRequest(String title, String content) {
     }
 
-    private User getCurrentUser() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getPrincipal().toString();
-        return userRepository.findByUsername(username)
-            .orElseThrow(() -> new RuntimeException("Authenticated user not found"));
+    /**
+     * Body of {@code PUT /notes/{id}}; a null {@code title} keeps the current one.
+     */
+    public record UpdateNoteRequest(Long lastRevisionId, String title, String content, Boolean merge) {
+    }
+
+    /**
+     * Body of {@code POST /notes/sync}: creates (no {@code noteId}, a {@code title})
+     * and updates (with {@code noteId} and {@code lastRevisionId}), in order.
+     */
+    public record SyncRequest(List<SyncItem> items) {
+
+        /**
+         * Why the batch cannot be applied, or null if it can.
+         */
+        String invalid() {
+            if (items == null || items.isEmpty()) {
+                return "items is required";
+            }
+            if (items.size() > MAX_SYNC_ITEMS) {
+                return "at most " + MAX_SYNC_ITEMS + " items per sync";
+            }
+            for (int i = 0; i < items.size(); i++) {
+                SyncItem item = items.get(i);
+                if (item == null) {
+                    return "items[" + i + "] is malformed";
+                }
+                if (item.noteId() == null && item.title() == null) {
+                    return "items[" + i + "]: title is required";
+                }
+                if (item.noteId() != null && item.lastRevisionId() == null) {
+                    return "items[" + i + "]: lastRevisionId is required";
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Body of a create or update: a {@link CommitResponse} or a {@link CommitError}.
+     */
+    public sealed interface CommitBody permits CommitResponse, CommitError {
+    }
+
+    /**
+     * A committed create or update. {@code unchanged} and {@code merged} are
+     * only present when true, {@code content} only with {@code merged}.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record CommitResponse(Long noteId, Long revisionId, Integer revisionNumber, Boolean unchanged,
+                                 Boolean merged, String content) implements CommitBody {
+
+        static CommitResponse of(CommitResult result) {
+            return new CommitResponse(result.noteId(), result.revisionId(), result.revisionNumber(),
+                result.status() == NoteCommitService.Status.UNCHANGED ? true : null,
+                result.mergedContent() != null ? true : null,
+                result.mergedContent());
+        }
+    }
+
+    /**
+     * The error body of every endpoint here, including a create or update that was
+     * not committed. The current head is only present for a conflict,
+     * {@code conflicts} only if a merge failed.
+     */
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    public record CommitError(String error, Long currentRevisionId, Integer currentRevisionNumber,
+                              List<ThreeWayMerge.Conflict> conflicts) implements CommitBody {
+
+        static CommitError of(String error) {
+            return new CommitError(error, null, null, List.of());
+        }
+    }
+
+    /**
+     * One entry of {@code POST /notes/sync} results: the status plus the body
+     * the single request would have returned.
+     */
+    public record SyncResult(int status, @JsonUnwrapped CommitBody body) {
+    }
+
+    /**
+     * Body of {@code GET /notes/{id}}: the note at its head revision.
+     */
+    public record NoteResponse(Long noteId, String title, Long revisionId, Integer revisionNumber, String content) {
     }
 
     @PostMapping
-    public ResponseEntity<?> createNote(@RequestBody Map<String, String> body) {
-        User user = getCurrentUser();
-        String title = body.get("title");
-        String content = body.get("content");
-
-        Note note = new Note();
-        note.setUser(user);
-        note.setTitle(title);
-        note.setCreatedAt(OffsetDateTime.now());
-        note.setUpdatedAt(OffsetDateTime.now());
-        Note saved = noteRepository.save(note);
-
-        NoteRevision revision = new NoteRevision();
-        revision.setNote(saved);
-        revision.setContent(content);
-        revision.setRevisionNumber(1);
-        revision.setCreatedAt(OffsetDateTime.now());
-        NoteRevision savedRevision = revisionRepository.save(revision);
-
-        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
-            "noteId", saved.getId(),
-            "revisionId", savedRevision.getId(),
-            "revisionNumber", savedRevision.getRevisionNumber()
-        ));
+    public ResponseEntity<?> createNote(@RequestBody CreateNoteRequest body) {
+        AuthenticatedUser user = getCurrentUser();
+
+        CommitResult created = commitService.create(user.id(), body.title(), body.content());
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(CommitResponse.of(created));
+    }
+
+    /**
+     * Like {@link #createNote} with the content as the raw {@code text/plain}
+     * request body, always read as UTF-8, so large notes skip JSON parsing.
+     */
+    @PostMapping(consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<?> createNoteText(@RequestParam String title, HttpServletRequest request) throws IOException {
+        AuthenticatedUser user = getCurrentUser();
+
+        CommitResult created = commitService.create(user.id(), title, readText(request));
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(CommitResponse.of(created));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateNote(@PathVariable Long id, @RequestBody Map<String, Object> body) {
-        User user = getCurrentUser();
-        Note note = noteRepository.findById(id)
-            .orElse(null);
+    public ResponseEntity<?> updateNote(@PathVariable Long id, @RequestBody UpdateNoteRequest body) {
+        AuthenticatedUser user = getCurrentUser();
 
-        if (note == null) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Note not found"));
+        if (body.lastRevisionId() == null) {
+            return ResponseEntity.badRequest().body(CommitError.of("lastRevisionId is required"));
         }
+        boolean merge = Boolean.TRUE.equals(body.merge());
+
+        CommitResult result = commitService.commit(id, user.id(), body.lastRevisionId(), body.title(), body.content(),
+            merge);
+
+        return commitResponse(result, HttpStatus.OK);
+    }
 
-        Long lastRevisionId = ((Number) body.get("lastRevisionId")).longValue();
-        String content = (String) body.get("content");
-        String title = (String) body.getOrDefault("title", note.getTitle());
+    /**
+     * Like {@link #updateNote} with the content as the raw {@code text/plain}
+     * request body, always read as UTF-8, and the other fields as parameters.
+     */
+    @PutMapping(value = "/{id}", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<?> updateNoteText(@PathVariable Long id,
+                                            @RequestParam long lastRevisionId,
+                                            @RequestParam(required = false) String title,
+                                            @RequestParam(defaultValue = "false") boolean merge,
+                                            HttpServletRequest request) throws IOException {
+        AuthenticatedUser user = getCurrentUser();
 
-        NoteRevision latest = revisionRepository.findLatestByNote(note)
-            .orElseThrow(() -> new RuntimeException("No revisions found"));
+        CommitResult result = commitService.commit(id, user.id(), lastRevisionId, title, readText(request), merge);
 
-        if (!latest.getId().equals(lastRevisionId)) {
-            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
-                "error", "Conflict: note was modified by another session",
-                "currentRevisionId", latest.getId(),
-                "currentRevisionNumber", latest.getRevisionNumber()
-            ));
+        return commitResponse(result, HttpStatus.OK);
+    }
+
+    /**
+     * The request body as UTF-8. With a {@code Content-Length} it is read straight
+     * into one array of that size rather than through growing buffers.
+     */
+    private static String readText(HttpServletRequest request) throws IOException {
+        long length = request.getContentLengthLong();
+        try (InputStream in = request.getInputStream()) {
+            if (length < 0 || length > Integer.MAX_VALUE) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            byte[] content = new byte[(int) length];
+            if (in.readNBytes(content, 0, content.length) < content.length) {
+                throw new EOFException("Request body shorter than Content-Length");
+            }
+            return new String(content, StandardCharsets.UTF_8);
         }
+    }
 
-        note.setTitle(title);
-        note.setUpdatedAt(OffsetDateTime.now());
-        noteRepository.save(note);
+    /**
+     * Applies a batch of creates (no {@code noteId}) and updates (with
+     * {@code noteId} and {@code lastRevisionId}) in order. Each result carries
+     * its HTTP {@code status} and the body {@code createNote}/{@code updateNote}
+     * would have returned for that item, conflicts included.
+     */
+    @PostMapping("/sync")
+    public ResponseEntity<?> syncNotes(@RequestBody SyncRequest body) {
+        AuthenticatedUser user = getCurrentUser();
 
-        NoteRevision revision = new NoteRevision();
-        revision.setNote(note);
-        revision.setContent(content);
-        revision.setRevisionNumber(latest.getRevisionNumber() + 1);
-        revision.setCreatedAt(OffsetDateTime.now());
-        NoteRevision savedRevision = revisionRepository.save(revision);
+        String invalid = body.invalid();
+        if (invalid != null) {
+            return ResponseEntity.badRequest().body(CommitError.of(invalid));
+        }
+        List<SyncItem> items = body.items();
+
+        List<CommitResult> results = syncService.sync(user.id(), items);
 
+        List<SyncResult> responses = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            ResponseEntity<CommitBody> response = commitResponse(results.get(i),
+                items.get(i).noteId() == null ? HttpStatus.CREATED : HttpStatus.OK);
+            responses.add(new SyncResult(response.getStatusCode().value(), response.getBody()));
+        }
+        return ResponseEntity.ok(Map.of("results", responses));
+    }
+
+    private static ResponseEntity<CommitBody> commitResponse(CommitResult result, HttpStatus committed) {
+        return switch (result.status()) {
+            case NOT_FOUND -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(CommitError.of("Note not found"));
+            case FORBIDDEN -> ResponseEntity.status(HttpStatus.FORBIDDEN).body(CommitError.of("Not your note"));
+            case CONFLICT -> ResponseEntity.status(HttpStatus.CONFLICT).body(new CommitError(
+                "Conflict: note was modified by another session",
+                result.revisionId(), result.revisionNumber(), result.conflicts()));
+            case COMMITTED, UNCHANGED -> ResponseEntity.status(committed).body(CommitResponse.of(result));
+        };
+    }
+
+    /**
+     * The note's title and content at its head revision. The ETag is the head
+     * revision id, so a poll whose {@code If-None-Match} still names the head is
+     * answered with a 304 from the head cache without reading any content.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getNote(@PathVariable Long id,
+                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                     String ifNoneMatch) throws IOException {
+        OwnedHead owned = ownedHead(id, getCurrentUser());
+        if (owned.denied() != null) {
+            return owned.denied();
+        }
+        NoteHeadCache.Head head = owned.head();
+
+        ETag etag = etag(head);
+        if (notModified(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag.formattedTag())
+                .cacheControl(REVALIDATE)
+                .build();
+        }
+
+        String content = head.content();
+        if (!head.contentKnown()) {
+            Resource stored = revisionContent.open(id, head.revisionNumber());
+            if (stored == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(CommitError.of("Revision not found"));
+            }
+            content = stored.getContentAsString(StandardCharsets.UTF_8);
+        }
+        return ResponseEntity.ok()
+            .eTag(etag.formattedTag())
+            .cacheControl(REVALIDATE)
+            .body(new NoteResponse(id, head.title(), head.revisionId(), head.revisionNumber(),
+                content != null ? content : ""));
+    }
+
+    /**
+     * The note's head, or the 404 or 403 to answer instead when it is missing or not {@code user}'s.
+     */
+    private record OwnedHead(NoteHeadCache.Head head, ResponseEntity<CommitError> denied) {
+    }
+
+    private OwnedHead ownedHead(long id, AuthenticatedUser user) {
+        NoteHeadCache.Head head = headCache.get(id);
+        if (head == null) {
+            return new OwnedHead(null,
+                ResponseEntity.status(HttpStatus.NOT_FOUND).body(CommitError.of("Note not found")));
+        }
+        if (!user.id().equals(head.userId())) {
+            return new OwnedHead(null,
+                ResponseEntity.status(HttpStatus.FORBIDDEN).body(CommitError.of("Not your note")));
+        }
+        return new OwnedHead(head, null);
+    }
+
+    /**
+     * A strong ETag naming the head revision; a revision's content never changes.
+     */
+    private static ETag etag(NoteHeadCache.Head head) {
+        return new ETag(Long.toString(head.revisionId()), false);
+    }
+
+    /**
+     * The head's tag, suffixed with the history version once compaction has deleted revisions.
+     */
+    private static ETag historyEtag(NoteHeadCache.Head head) {
+        if (head.historyVersion() == 0) {
+            return etag(head);
+        }
+        return new ETag(head.revisionId() + "." + head.historyVersion(), false);
+    }
+
+    /**
+     * Whether {@code If-None-Match} names {@code etag} or is {@code *}, compared
+     * weakly as RFC 9110 requires for this header.
+     */
+    private static boolean notModified(String ifNoneMatch, ETag etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (ETag candidate : ETag.parse(ifNoneMatch)) {
+            if (candidate.isWildcard() || candidate.compare(etag, false)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Streams the note's history. Without {@code limit} the whole history is
+     * returned as an array; with it, a page of at most {@code limit} revisions and
+     * a {@code nextCursor} to pass as {@code after}. {@code summary=true} omits content.
+     * Tagged with the head revision id like {@link #getNote}, plus the history
+     * version once retention has deleted revisions, so polling an unchanged
+     * note's history costs a 304 and no revision query.
+     */
+    @GetMapping("/{id}/revisions")
+    public ResponseEntity<?> getRevisions(@PathVariable Long id,
+                                          @RequestParam(defaultValue = "0") int after,
+                                          @RequestParam(required = false) Integer limit,
+                                          @RequestParam(defaultValue = "false") boolean summary,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                          String ifNoneMatch) {
+        OwnedHead owned = ownedHead(id, getCurrentUser());
+        if (owned.denied() != null) {
+            return owned.denied();
+        }
+        NoteHeadCache.Head head = owned.head();
+
+        if (limit != null && (limit < 1 || limit > RevisionHistory.MAX_PAGE_SIZE)) {
+            return ResponseEntity.badRequest().body(CommitError.of(
+                "limit must be between 1 and " + RevisionHistory.MAX_PAGE_SIZE));
+        }
+
+        ETag etag = historyEtag(head);
+        if (notModified(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag.formattedTag())
+                .cacheControl(REVALIDATE)
+                .build();
+        }
+
+        Note note = noteRepository.getReferenceById(id);
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok().eTag(etag.formattedTag()).cacheControl(REVALIDATE);
+        if (limit == null) {
+            return ok.body(revisionHistory.all(note, after, summary));
+        }
+        return ok.body(revisionHistory.page(note, after, limit, summary));
+    }
+
+    /**
+     * Unified-diff hunks from revision number {@code from} to {@code to}, each with
+     * up to {@code context} unchanged lines around the changes.
+     */
+    @GetMapping("/{id}/revisions/{from}/diff/{to}")
+    public ResponseEntity<?> diffRevisions(@PathVariable Long id, @PathVariable int from, @PathVariable int to,
+                                           @RequestParam(defaultValue = "3") int context) {
+        OwnedHead owned = ownedHead(id, getCurrentUser());
+        if (owned.denied() != null) {
+            return owned.denied();
+        }
+
+        if (context < 0 || context > RevisionDiff.MAX_CONTEXT) {
+            return ResponseEntity.badRequest().body(CommitError.of(
+                "context must be between 0 and " + RevisionDiff.MAX_CONTEXT));
+        }
+
+        List<RevisionDiff.Hunk> hunks = revisionDiff.diff(noteRepository.getReferenceById(id), from, to, context);
+        if (hunks == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(CommitError.of("Revision not found"));
+        }
         return ResponseEntity.ok(Map.of(
-            "noteId", note.getId(),
-            "revisionId", savedRevision.getId(),
-            "revisionNumber", savedRevision.getRevisionNumber()
+            "from", from,
+            "to", to,
+            "hunks", hunks
         ));
     }
 
-    @GetMapping("/{id}/revisions")
-    public ResponseEntity<?> getRevisions(@PathVariable Long id) {
-        User user = getCurrentUser();
-        Note note = noteRepository.findById(id)
-            .orElse(null);
+    /**
+     * The content of one revision as plain text, streamed from where it is
+     * stored rather than embedded in JSON.
+     */
+    @GetMapping("/{id}/revisions/{number}/content")
+    public ResponseEntity<?> getRevisionContent(@PathVariable Long id, @PathVariable int number) {
+        OwnedHead owned = ownedHead(id, getCurrentUser());
+        if (owned.denied() != null) {
+            return owned.denied();
+        }
+
+        Resource content = revisionContent.open(id, number);
+        if (content == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(CommitError.of("Revision not found"));
+        }
+        return ResponseEntity.ok()
+            .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+            .body(content);
+    }
 
-        if (note == null) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Note not found"));
+    /**
+     * Server-sent events for the caller's notes: a {@code revision} event
+     * ({@code noteId}, {@code revisionId}, {@code revisionNumber}) for the latest
+     * commit of each changed note, or {@code resync} when too many changed at once
+     * to send individually. 503 while stalled streams hold every spare sender.
+     */
+    @GetMapping(value = "/stream", produces = "text/event-stream")
+    public ResponseEntity<SseEmitter> streamChanges() {
+        SseEmitter emitter = changeBroadcaster.subscribe(getCurrentUser().id());
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "10")
+                .build();
         }
+        return ResponseEntity.ok(emitter);
+    }
 
-        if (!note.getUser().getId().equals(user.getId())) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Not your note"));
+    /**
+     * Ranked full-text search over the caller's note titles and latest content.
+     * {@code q} accepts web-search syntax (quoted phrases, {@code or}, {@code -word}).
+     * {@code nextOffset} is null on the last page.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchNotes(@RequestParam(defaultValue = "") String q,
+                                         @RequestParam(defaultValue = "20") int limit,
+                                         @RequestParam(defaultValue = "0") int offset) {
+        AuthenticatedUser user = getCurrentUser();
+
+        if (q.isBlank()) {
+            return ResponseEntity.badRequest().body(CommitError.of("q is required"));
+        }
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            return ResponseEntity.badRequest().body(CommitError.of(
+                "limit must be between 1 and " + MAX_SEARCH_LIMIT));
+        }
+        if (offset < 0) {
+            return ResponseEntity.badRequest().body(CommitError.of("offset must not be negative"));
         }
 
-        List<NoteRevision> revisions = revisionRepository.findByNoteOrderByRevisionNumber(note);
-        List<Map<String, Object>> result = revisions.stream().map(r -> Map.<String, Object>of(
-            "revisionId", r.getId(),
-            "revisionNumber", r.getRevisionNumber(),
-            "content", r.getContent() != null ? r.getContent() : "",
-            "createdAt", r.getCreatedAt()
-        )).collect(Collectors.toList());
+        List<NoteSearchHit> hits = searchService.search(user.id(), q, limit + 1, offset);
+        boolean more = hits.size() > limit;
+        List<Map<String, Object>> results = hits.stream()
+            .limit(limit)
+            .map(hit -> Map.<String, Object>of(
+                "noteId", hit.getId(),
+                "title", hit.getTitle() == null ? "" : hit.getTitle(),
+                "revisionId", hit.getHeadRevisionId(),
+                "revisionNumber", hit.getHeadRevisionNumber(),
+                "updatedAt", hit.getUpdatedAt(),
+                "rank", hit.getRank()
+            ))
+            .toList();
 
-        return ResponseEntity.ok(result);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("results", results);
+        response.put("nextOffset", more ? offset + limit : null);
+        return ResponseEntity.ok(response);
     }
 }
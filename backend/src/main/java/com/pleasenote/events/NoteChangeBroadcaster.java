@@ -0,0 +1,368 @@
+package com.pleasenote.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes committed revisions to the owner's open {@code GET /notes/stream} connections.
+ *
+ * Commits only enqueue: each connection keeps the latest unsent revision per
+ * note, so a burst of edits to one note collapses into one event, and a small
+ * pool of {@code notes.stream.send-threads} writes to the sockets. Writes block,
+ * so a connection whose write has not finished after
+ * {@code notes.stream.write-timeout} is dropped and the pool gets an extra
+ * thread until that write returns, up to {@code notes.stream.max-stalled-writes}
+ * extra threads. A stalled client never delays a commit and, below that cap,
+ * delays other clients by at most the write timeout; at the cap new
+ * connections are refused until stalled writes return. Once a connection has
+ * {@code notes.stream.max-pending} notes waiting they are dropped for a single
+ * {@code resync} event, telling the client to reload its note list. A comment
+ * every {@code notes.stream.heartbeat} keeps proxies from closing idle
+ * connections and detects dead ones; a user opening more than
+ * {@code notes.stream.max-per-user} connections closes their oldest.
+ *
+ * Only commits made on this node are seen: the {@code note_events} relay runs
+ * on one node at a time and consumes the outbox, so it cannot feed the others.
+ */
+@Component
+public class NoteChangeBroadcaster implements DisposableBean {
+
+    private final Map<Long, Deque<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final int maxPending;
+    private final int maxPerUser;
+    private final long timeoutMs;
+    private final int sendThreads;
+    private final int maxStalledWrites;
+    private final long writeTimeoutNanos;
+    private final ThreadPoolExecutor senders;
+    private final AtomicInteger stalledWrites = new AtomicInteger();
+    private final ScheduledExecutorService heartbeats;
+    private final Counter resyncs;
+    private final Counter stalled;
+    private final Counter rejected;
+
+    public NoteChangeBroadcaster(
+        MeterRegistry meterRegistry,
+        @Value("${notes.stream.send-threads:4}") int sendThreads,
+        @Value("${notes.stream.max-pending:256}") int maxPending,
+        @Value("${notes.stream.max-per-user:8}") int maxPerUser,
+        @Value("${notes.stream.timeout:30m}") Duration timeout,
+        @Value("${notes.stream.heartbeat:30s}") Duration heartbeat,
+        @Value("${notes.stream.write-timeout:10s}") Duration writeTimeout,
+        @Value("${notes.stream.max-stalled-writes:64}") int maxStalledWrites
+    ) {
+        this.maxPending = maxPending;
+        this.maxPerUser = maxPerUser;
+        this.timeoutMs = timeout.toMillis();
+        this.sendThreads = sendThreads;
+        this.maxStalledWrites = maxStalledWrites;
+        this.writeTimeoutNanos = writeTimeout.toNanos();
+        AtomicInteger count = new AtomicInteger();
+        // Grows past sendThreads only while writes are stalled, see expireStalledWrites
+        this.senders = new ThreadPoolExecutor(sendThreads, sendThreads + maxStalledWrites, 1, TimeUnit.MINUTES,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "note-stream-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "note-stream-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeats.scheduleAtFixedRate(this::heartbeat, heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+        long checkMs = Math.max(writeTimeout.toMillis() / 4, 1);
+        heartbeats.scheduleAtFixedRate(this::expireStalledWrites, checkMs, checkMs, TimeUnit.MILLISECONDS);
+        Gauge.builder("notes.stream.connections", connections, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("notes.stream.senders", senders, ThreadPoolExecutor::getPoolSize).register(meterRegistry);
+        this.resyncs = Counter.builder("notes.stream.resyncs").register(meterRegistry);
+        this.stalled = Counter.builder("notes.stream.stalled").register(meterRegistry);
+        this.rejected = Counter.builder("notes.stream.rejected").register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream for {@code userId}, or returns null while stalled writes
+     * hold every extra sender thread.
+     */
+    public SseEmitter subscribe(long userId) {
+        if (stalledWrites.get() >= maxStalledWrites) {
+            rejected.increment();
+            return null;
+        }
+        Subscriber subscriber = new Subscriber(userId, newEmitter(timeoutMs));
+        Deque<Subscriber> own = subscribers.compute(userId, (id, deque) -> {
+            Deque<Subscriber> result = deque != null ? deque : new ConcurrentLinkedDeque<>();
+            result.addLast(subscriber);
+            return result;
+        });
+        connections.incrementAndGet();
+        subscriber.emitter.onCompletion(subscriber::remove);
+        subscriber.emitter.onTimeout(subscriber::remove);
+        subscriber.emitter.onError(error -> subscriber.remove());
+        while (own.size() > maxPerUser) {
+            Subscriber oldest = own.pollFirst();
+            if (oldest != null) {
+                oldest.close();
+            }
+        }
+        // Sends the response headers right away
+        subscriber.heartbeat();
+        return subscriber.emitter;
+    }
+
+    SseEmitter newEmitter(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommitted(NoteCommitted committed) {
+        Deque<Subscriber> own = subscribers.get(committed.userId());
+        if (own != null) {
+            for (Subscriber subscriber : own) {
+                subscriber.offer(committed);
+            }
+        }
+    }
+
+    private void heartbeat() {
+        for (Deque<Subscriber> own : subscribers.values()) {
+            for (Subscriber subscriber : own) {
+                subscriber.heartbeat();
+            }
+        }
+    }
+
+    /**
+     * Drops connections stuck in a write for longer than the write timeout. The
+     * write itself cannot be interrupted and holds its thread until the server's
+     * own timeout fails it, so a thread is added to the pool meanwhile, up to
+     * {@code maxStalledWrites} of them.
+     */
+    private void expireStalledWrites() {
+        long now = System.nanoTime();
+        for (Deque<Subscriber> own : subscribers.values()) {
+            for (Subscriber subscriber : own) {
+                if (subscriber.expireWrite(now)) {
+                    stalled.increment();
+                    stalledWrites.incrementAndGet();
+                    resizeSenders();
+                    subscriber.close();
+                }
+            }
+        }
+    }
+
+    private void stalledWriteReturned() {
+        stalledWrites.decrementAndGet();
+        resizeSenders();
+    }
+
+    private void resizeSenders() {
+        synchronized (senders) {
+            senders.setCorePoolSize(sendThreads + Math.min(stalledWrites.get(), maxStalledWrites));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        heartbeats.shutdownNow();
+        senders.shutdownNow();
+        for (Deque<Subscriber> own : subscribers.values()) {
+            for (Subscriber subscriber : own) {
+                subscriber.close();
+            }
+        }
+    }
+
+    private final class Subscriber {
+
+        private final long userId;
+        private final SseEmitter emitter;
+
+        // Guarded by this; the latest unsent revision per note, in first-change order
+        private final LinkedHashMap<Long, NoteCommitted> pending = new LinkedHashMap<>();
+        private boolean resync;
+        private boolean heartbeatDue;
+        private boolean scheduled;
+        private boolean closed;
+        // System.nanoTime() when the write in progress started, 0 between writes
+        private long writeStarted;
+        private boolean writeExpired;
+
+        Subscriber(long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        synchronized void offer(NoteCommitted committed) {
+            if (closed) {
+                return;
+            }
+            NoteCommitted queued = pending.get(committed.noteId());
+            if (queued != null) {
+                if (committed.revisionNumber() > queued.revisionNumber()) {
+                    pending.put(committed.noteId(), committed);
+                }
+            } else if (pending.size() >= maxPending) {
+                pending.clear();
+                if (!resync) {
+                    resync = true;
+                    resyncs.increment();
+                }
+            } else {
+                pending.put(committed.noteId(), committed);
+            }
+            schedule();
+        }
+
+        synchronized void heartbeat() {
+            if (!closed) {
+                heartbeatDue = true;
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            if (!scheduled) {
+                scheduled = true;
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                boolean sendResync;
+                boolean sendHeartbeat;
+                List<NoteCommitted> events;
+                synchronized (this) {
+                    if (closed || (!resync && !heartbeatDue && pending.isEmpty())) {
+                        scheduled = false;
+                        return;
+                    }
+                    sendResync = resync;
+                    sendHeartbeat = heartbeatDue && !resync && pending.isEmpty();
+                    events = new ArrayList<>(pending.values());
+                    pending.clear();
+                    resync = false;
+                    heartbeatDue = false;
+                }
+                try {
+                    if (sendResync) {
+                        send(SseEmitter.event().name("resync").data(Map.of()));
+                    }
+                    for (NoteCommitted event : events) {
+                        send(SseEmitter.event().name("revision").data(Map.of(
+                            "noteId", event.noteId(),
+                            "revisionId", event.revisionId(),
+                            "revisionNumber", event.revisionNumber()
+                        )));
+                    }
+                    if (sendHeartbeat) {
+                        send(SseEmitter.event().comment(""));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // Client gone or emitter already completed
+                    close();
+                }
+            }
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                writeStarted = System.nanoTime();
+            }
+            try {
+                emitter.send(event);
+            } finally {
+                boolean expired;
+                boolean completeNow;
+                synchronized (this) {
+                    writeStarted = 0;
+                    expired = writeExpired;
+                    writeExpired = false;
+                    completeNow = closed;
+                }
+                if (expired) {
+                    stalledWriteReturned();
+                }
+                if (completeNow) {
+                    complete();
+                }
+            }
+        }
+
+        /**
+         * Whether the write in progress has just passed the write timeout.
+         */
+        synchronized boolean expireWrite(long now) {
+            if (writeStarted == 0 || writeExpired || now - writeStarted < writeTimeoutNanos) {
+                return false;
+            }
+            writeExpired = true;
+            return true;
+        }
+
+        /**
+         * Stops delivery. The emitter is completed here, or by the sender once a
+         * write in progress returns, since completing waits for that write.
+         */
+        void close() {
+            remove();
+            synchronized (this) {
+                if (writeStarted != 0) {
+                    return;
+                }
+            }
+            complete();
+        }
+
+        private void complete() {
+            try {
+                emitter.complete();
+            } catch (IllegalStateException e) {
+                // Already completed
+            }
+        }
+
+        void remove() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                pending.clear();
+            }
+            connections.decrementAndGet();
+            subscribers.computeIfPresent(userId, (id, deque) -> {
+                deque.remove(this);
+                return deque.isEmpty() ? null : deque;
+            });
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.pleasenote.events;
+
+/**
+ * Application event published by the transaction that commits a revision;
+ * listeners use {@code @TransactionalEventListener} to act once it commits.
+ */
+public record NoteCommitted(long userId, long noteId, long revisionId, int revisionNumber) {
+}
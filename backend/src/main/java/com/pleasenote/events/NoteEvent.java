@@ -0,0 +1,13 @@
+package com.pleasenote.events;
+
+import java.time.Instant;
+
+/**
+ * A committed revision, as delivered to a {@link NoteEventSink}. {@code id}
+ * increases with commit order for any one note.
+ */
+public record NoteEvent(long id, Type type, long noteId, long userId, long revisionId, int revisionNumber,
+                        Instant createdAt) {
+
+    public enum Type { CREATED, UPDATED }
+}
@@ -0,0 +1,46 @@
+package com.pleasenote.events;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * The writing side of the {@code note_events} outbox.
+ *
+ * Commits insert their event in the same statement or batch as the revision,
+ * so an event exists exactly when its revision does. With
+ * {@code events.enabled=false} (the default) nothing is written, but commits
+ * are still announced in-process.
+ */
+@Component
+public class NoteEventOutbox {
+
+    /**
+     * For batched writers; the parameters are type, note id, user id, revision id,
+     * revision number and time.
+     */
+    public static final String INSERT_SQL = """
+        INSERT INTO note_events (type, note_id, user_id, revision_id, revision_number, created_at)
+        VALUES (?, ?, ?, ?, ?, ?)
+        """;
+
+    private final boolean enabled;
+    private final ApplicationEventPublisher publisher;
+
+    public NoteEventOutbox(@Value("${events.enabled:false}") boolean enabled, ApplicationEventPublisher publisher) {
+        this.enabled = enabled;
+        this.publisher = publisher;
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * Announces a revision committed by the current transaction as a
+     * {@link NoteCommitted} event, whether or not events are enabled.
+     */
+    public void committed(long userId, long noteId, long revisionId, int revisionNumber) {
+        publisher.publishEvent(new NoteCommitted(userId, noteId, revisionId, revisionNumber));
+    }
+}
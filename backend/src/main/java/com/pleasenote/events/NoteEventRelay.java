@@ -0,0 +1,145 @@
+package com.pleasenote.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the {@code note_events} outbox into the {@link NoteEventSink}.
+ *
+ * A background thread publishes up to {@code events.relay.batch-size} events
+ * per transaction, oldest first, and deletes them once the sink accepted them.
+ * It wakes as soon as a local commit writes events and otherwise polls every
+ * {@code events.relay.poll-interval}, which also picks up events written on
+ * other nodes. A transaction-scoped advisory lock lets only one node relay at a
+ * time, keeping delivery in outbox order; per note that is commit order.
+ */
+@Component
+@ConditionalOnProperty(name = "events.enabled", havingValue = "true")
+public class NoteEventRelay implements DisposableBean {
+
+    // Arbitrary key of the advisory lock held while a batch is relayed
+    private static final long LOCK_KEY = 0x6e6f74655f657673L;
+
+    private static final String SELECT_SQL = """
+        SELECT id, type, note_id, user_id, revision_id, revision_number, created_at
+        FROM note_events
+        ORDER BY id
+        LIMIT ?
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final NoteEventSink sink;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Counter published;
+    private final Counter failed;
+    private final Semaphore wakeup = new Semaphore(0);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "note-event-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public NoteEventRelay(
+        JdbcTemplate jdbcTemplate,
+        TransactionTemplate transactionTemplate,
+        NoteEventSink sink,
+        MeterRegistry meterRegistry,
+        @Value("${events.relay.batch-size:500}") int batchSize,
+        @Value("${events.relay.poll-interval:1s}") Duration pollInterval
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.sink = sink;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.published = Counter.builder("events.relay.published").register(meterRegistry);
+        this.failed = Counter.builder("events.relay.failures").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.execute(this::run);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommitted(NoteCommitted committed) {
+        wakeup.release();
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                if (relayBatch() < batchSize) {
+                    wakeup.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                    wakeup.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                // Sink or database failure: the batch was rolled back, retry after the poll interval
+                failed.increment();
+                try {
+                    Thread.sleep(pollInterval.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Publishes and removes one batch; returns its size, or 0 if another node holds the lock.
+     */
+    public int relayBatch() {
+        return transactionTemplate.execute(status -> {
+            Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, LOCK_KEY);
+            if (!Boolean.TRUE.equals(locked)) {
+                return 0;
+            }
+            List<NoteEvent> events = jdbcTemplate.query(SELECT_SQL, (rs, i) -> new NoteEvent(
+                rs.getLong("id"),
+                NoteEvent.Type.valueOf(rs.getString("type")),
+                rs.getLong("note_id"),
+                rs.getLong("user_id"),
+                rs.getLong("revision_id"),
+                rs.getInt("revision_number"),
+                rs.getTimestamp("created_at").toInstant()
+            ), batchSize);
+            if (events.isEmpty()) {
+                return 0;
+            }
+            try {
+                sink.publish(events);
+            } catch (Exception e) {
+                throw new IllegalStateException("Publishing note events failed", e);
+            }
+            jdbcTemplate.update("DELETE FROM note_events WHERE id = ANY(?)",
+                (Object) events.stream().map(NoteEvent::id).toArray(Long[]::new));
+            published.increment(events.size());
+            return events.size();
+        });
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
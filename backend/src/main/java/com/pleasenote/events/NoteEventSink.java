@@ -0,0 +1,13 @@
+package com.pleasenote.events;
+
+import java.util.List;
+
+/**
+ * Where {@link NoteEventRelay} publishes events. Delivery is at least once: a
+ * batch is removed from the outbox only after {@link #publish} returns, and
+ * retried whole if it throws.
+ */
+public interface NoteEventSink {
+
+    void publish(List<NoteEvent> events) throws Exception;
+}
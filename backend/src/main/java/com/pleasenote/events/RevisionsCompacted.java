@@ -0,0 +1,8 @@
+package com.pleasenote.events;
+
+/**
+ * Application event published by the transaction that deletes revisions of a
+ * note; listeners use {@code @TransactionalEventListener} to act once it commits.
+ */
+public record RevisionsCompacted(long noteId) {
+}
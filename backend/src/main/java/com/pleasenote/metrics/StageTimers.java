@@ -0,0 +1,70 @@
+package com.pleasenote.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the stages of hot-path operations: one timer per operation
+ * {@code name} with a {@code stage} tag, publishing a percentile histogram.
+ *
+ * Stages are resolved into {@link Stage}s once, when their owner is built, so
+ * recording one costs a {@link System#nanoTime} call and a histogram update. A
+ * stage that takes at least {@code metrics.slow-threshold} (default 500ms) also
+ * increments {@code <name>.slow} with the same tag.
+ */
+@Component
+public class StageTimers {
+
+    private final MeterRegistry meterRegistry;
+    private final long slowNanos;
+
+    public StageTimers(
+        MeterRegistry meterRegistry,
+        @Value("${metrics.slow-threshold:500ms}") Duration slowThreshold
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.slowNanos = slowThreshold.toNanos();
+    }
+
+    public Stage stage(String name, String stage) {
+        Timer timer = Timer.builder(name)
+            .tag("stage", stage)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        Counter slow = Counter.builder(name + ".slow").tag("stage", stage).register(meterRegistry);
+        return new Stage(timer, slow, slowNanos);
+    }
+
+    public static final class Stage {
+
+        private final Timer timer;
+        private final Counter slow;
+        private final long slowNanos;
+
+        private Stage(Timer timer, Counter slow, long slowNanos) {
+            this.timer = timer;
+            this.slow = slow;
+            this.slowNanos = slowNanos;
+        }
+
+        /**
+         * Records the time since {@code start}, a {@link System#nanoTime} value,
+         * and returns the current one to start the next stage from.
+         */
+        public long record(long start) {
+            long now = System.nanoTime();
+            long elapsed = now - start;
+            timer.record(elapsed, TimeUnit.NANOSECONDS);
+            if (elapsed >= slowNanos) {
+                slow.increment();
+            }
+            return now;
+        }
+    }
+}
@@ -11,7 +11,7 @@ public class Note {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
@@ -24,6 +24,16 @@ public class Note {
     @Column(name = "updated_at")
     private OffsetDateTime updatedAt;
 
+    // Maintained only by the commit statements in NoteCommitService and NoteSyncService
+    @Column(name = "head_revision_id", insertable = false, updatable = false)
+    private Long headRevisionId;
+
+    @Column(name = "head_revision_number", insertable = false, updatable = false)
+    private Integer headRevisionNumber;
+
+    @Column(name = "content_preview", insertable = false, updatable = false)
+    private String contentPreview;
+
     // getters and setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -35,4 +45,7 @@ public class Note {
     public void setCreatedAt(OffsetDateTime createdAt) { this.createdAt = createdAt; }
     public OffsetDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(OffsetDateTime updatedAt) { this.updatedAt = updatedAt; }
+    public Long getHeadRevisionId() { return headRevisionId; }
+    public Integer getHeadRevisionNumber() { return headRevisionNumber; }
+    public String getContentPreview() { return contentPreview; }
 }
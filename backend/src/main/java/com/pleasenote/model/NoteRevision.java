@@ -1,6 +1,11 @@
 package com.pleasenote.model;
 
+import com.pleasenote.revision.ContentCodec;
+import com.pleasenote.revision.ContentConverter;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Formula;
+import org.hibernate.annotations.PartitionKey;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 
 @Entity
@@ -13,12 +18,45 @@ public class NoteRevision {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "note_id")
     private Note note;
 
-    @Column(columnDefinition = "TEXT")
-    private String content;
+    // note_id again, read only, so updates and deletes name the row's partition
+    @PartitionKey
+    @Column(name = "note_id", insertable = false, updatable = false)
+    private Long noteId;
+
+    // Key of the revision_blobs row holding the full body of snapshot rows; null for deltas
+    @Column(name = "blob_hash")
+    private byte[] blobHash;
+
+    // Body of the blob_hash row, read only; the row is written by whoever writes the revision.
+    // Bodies kept in a file read as an EXTERNAL reference that ContentConverter resolves
+    @Formula("(SELECT COALESCE(b.body, decode('02', 'hex') || b.hash) FROM revision_blobs b WHERE b.hash = blob_hash)")
+    @Convert(converter = ContentConverter.class)
+    private String blobContent;
+
+    // Snapshot body written between V9 and V12, until ContentBackfill moves it to revision_blobs
+    @Convert(converter = ContentConverter.class)
+    @Column(name = "body")
+    private String body;
+
+    // Plain-text body of snapshots written before V9, until ContentBackfill moves it to revision_blobs
+    @Column(name = "content", columnDefinition = "TEXT")
+    private String legacyContent;
+
+    // UTF-8 of a body set by setContent, so writers of the blob do not encode it again
+    @Transient
+    private byte[] encodedContent;
+
+    // Delta against the previous revision in the chain; null for snapshot rows
+    @Column
+    private byte[] delta;
+
+    // Revision number of the snapshot this revision's delta chain starts from
+    @Column(name = "base_revision_number", nullable = false)
+    private int baseRevisionNumber;
 
     @Column(name = "revision_number", nullable = false)
     private int revisionNumber;
@@ -30,9 +68,31 @@ public class NoteRevision {
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
     public Note getNote() { return note; }
-    public void setNote(Note note) { this.note = note; }
-    public String getContent() { return content; }
-    public void setContent(String content) { this.content = content; }
+    public void setNote(Note note) {
+        this.note = note;
+        this.noteId = note == null ? null : note.getId();
+    }
+    public byte[] getBlobHash() { return blobHash; }
+    public String getContent() { return blobContent != null ? blobContent : body != null ? body : legacyContent; }
+    public void setContent(String content) {
+        setContent(content, content == null ? null : content.getBytes(StandardCharsets.UTF_8));
+    }
+    public void setContent(String content, byte[] utf8) {
+        this.blobContent = content;
+        this.encodedContent = utf8;
+        this.blobHash = utf8 == null ? null : ContentCodec.hashBytes(utf8);
+        this.body = null;
+        this.legacyContent = null;
+    }
+    public byte[] getContentBytes() {
+        String content = getContent();
+        return encodedContent != null || content == null ? encodedContent : content.getBytes(StandardCharsets.UTF_8);
+    }
+    public byte[] getDelta() { return delta; }
+    public void setDelta(byte[] delta) { this.delta = delta; }
+    public int getBaseRevisionNumber() { return baseRevisionNumber; }
+    public void setBaseRevisionNumber(int baseRevisionNumber) { this.baseRevisionNumber = baseRevisionNumber; }
+    public boolean isSnapshot() { return delta == null; }
     public int getRevisionNumber() { return revisionNumber; }
     public void setRevisionNumber(int revisionNumber) { this.revisionNumber = revisionNumber; }
     public OffsetDateTime getCreatedAt() { return createdAt; }
@@ -0,0 +1,15 @@
+package com.pleasenote.repository;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A row of the note list, read entirely from the denormalized columns on notes.
+ */
+public interface NoteListing {
+    Long getId();
+    String getTitle();
+    Long getHeadRevisionId();
+    Integer getHeadRevisionNumber();
+    String getContentPreview();
+    OffsetDateTime getUpdatedAt();
+}
@@ -2,9 +2,38 @@ package com.pleasenote.repository;
 
 import com.pleasenote.model.Note;
 import com.pleasenote.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.OffsetDateTime;
 import java.util.List;
 
 public interface NoteRepository extends JpaRepository<Note, Long> {
     List<Note> findByUser(User user);
+
+    @Query("SELECT n.id AS id, n.title AS title, n.headRevisionId AS headRevisionId, "
+        + "n.headRevisionNumber AS headRevisionNumber, n.contentPreview AS contentPreview, n.updatedAt AS updatedAt "
+        + "FROM Note n WHERE n.user.id = :userId ORDER BY n.updatedAt DESC, n.id DESC")
+    List<NoteListing> findListing(Long userId, Limit limit);
+
+    /**
+     * The page after the note with {@code updatedAt} and {@code id}, in the same order.
+     */
+    @Query("SELECT n.id AS id, n.title AS title, n.headRevisionId AS headRevisionId, "
+        + "n.headRevisionNumber AS headRevisionNumber, n.contentPreview AS contentPreview, n.updatedAt AS updatedAt "
+        + "FROM Note n WHERE n.user.id = :userId AND (n.updatedAt, n.id) < (:updatedAt, :id) "
+        + "ORDER BY n.updatedAt DESC, n.id DESC")
+    List<NoteListing> findListingBefore(Long userId, OffsetDateTime updatedAt, Long id, Limit limit);
+
+    @Query(value = """
+        SELECT n.id AS id, n.title AS title, n.head_revision_id AS headRevisionId,
+               n.head_revision_number AS headRevisionNumber, n.updated_at AS updatedAt,
+               ts_rank_cd(n.search_vector, q.query) AS rank
+        FROM notes n, websearch_to_tsquery(CAST(:language AS regconfig), :query) AS q(query)
+        WHERE n.user_id = :userId AND n.search_vector @@ q.query
+        ORDER BY rank DESC, n.id DESC
+        LIMIT :limit OFFSET :offset
+        """, nativeQuery = true)
+    List<NoteSearchHit> search(Long userId, String language, String query, int limit, int offset);
 }
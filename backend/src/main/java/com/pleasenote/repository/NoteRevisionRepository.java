@@ -2,9 +2,13 @@ package com.pleasenote.repository;
 
 import com.pleasenote.model.Note;
 import com.pleasenote.model.NoteRevision;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,6 +16,38 @@ public interface NoteRevisionRepository extends JpaRepository<NoteRevision, Long
 
     List<NoteRevision> findByNoteOrderByRevisionNumber(Note note);
 
-    @Query("SELECT nr FROM NoteRevision nr WHERE nr.note = :note ORDER BY nr.revisionNumber DESC LIMIT 1")
-    Optional<NoteRevision> findLatestByNote(Note note);
+    List<NoteRevision> findByNoteAndRevisionNumberBetweenOrderByRevisionNumber(Note note, int from, int to);
+
+    List<NoteRevision> findByNoteAndRevisionNumberGreaterThanOrderByRevisionNumber(Note note, int after, Pageable pageable);
+
+    @Query("SELECT nr.id AS id, nr.revisionNumber AS revisionNumber, nr.createdAt AS createdAt FROM NoteRevision nr "
+        + "WHERE nr.note = :note AND nr.revisionNumber > :after ORDER BY nr.revisionNumber")
+    List<RevisionSummary> findSummariesByNote(Note note, int after, Pageable pageable);
+
+    Optional<NoteRevision> findByNoteIdAndId(Long noteId, Long id);
+
+    /**
+     * Each requested revision's id paired with every row of its chain, snapshot
+     * first. {@code noteIds} holds the notes of the revisions, so only their
+     * partitions are read.
+     */
+    @Query("SELECT head.id, nr FROM NoteRevision head JOIN NoteRevision nr ON nr.note = head.note "
+        + "AND nr.revisionNumber BETWEEN head.baseRevisionNumber AND head.revisionNumber "
+        + "WHERE head.note.id IN :noteIds AND nr.note.id IN :noteIds AND head.id IN :ids "
+        + "ORDER BY head.id, nr.revisionNumber")
+    List<Object[]> findChainsByNoteIdInAndIdIn(Collection<Long> noteIds, Collection<Long> ids);
+
+    /**
+     * Revision number and id of each of {@code numbers} that exists for the note.
+     */
+    @Query("SELECT nr.revisionNumber, nr.id FROM NoteRevision nr WHERE nr.note = :note AND nr.revisionNumber IN :numbers")
+    List<Object[]> findIdsByNoteAndRevisionNumberIn(Note note, Collection<Integer> numbers);
+
+    /**
+     * One delta chain of a note, locked for rewriting.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<NoteRevision> findByNoteIdAndBaseRevisionNumberOrderByRevisionNumber(Long noteId, int baseRevisionNumber);
+
+    boolean existsByNoteAndRevisionNumberGreaterThan(Note note, int after);
 }
@@ -0,0 +1,15 @@
+package com.pleasenote.repository;
+
+import java.time.Instant;
+
+/**
+ * A note matching a full-text search, with its head revision and rank.
+ */
+public interface NoteSearchHit {
+    Long getId();
+    String getTitle();
+    Long getHeadRevisionId();
+    Integer getHeadRevisionNumber();
+    Instant getUpdatedAt();
+    float getRank();
+}
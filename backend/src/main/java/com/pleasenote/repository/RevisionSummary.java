@@ -0,0 +1,12 @@
+package com.pleasenote.repository;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Revision metadata without the body, for history listings.
+ */
+public interface RevisionSummary {
+    Long getId();
+    int getRevisionNumber();
+    OffsetDateTime getCreatedAt();
+}
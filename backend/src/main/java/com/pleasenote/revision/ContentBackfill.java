@@ -0,0 +1,137 @@
+package com.pleasenote.revision;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Moves snapshot bodies written before {@code revision_blobs} existed into it.
+ *
+ * After startup a background thread moves plain {@code content} (before V9) and
+ * encoded {@code body} (V9 to V12) into content-addressed blobs,
+ * {@code revisions.compression.backfill.batch-size} rows per transaction with
+ * {@code revisions.compression.backfill.pause} between batches, and stops once
+ * none are left. Rows are claimed with {@code SKIP LOCKED}, so every node can
+ * run it at once; reads see any of the columns in the meantime. Moved rows are
+ * counted as {@code revisions.backfill.rows}.
+ */
+@Component
+public class ContentBackfill implements DisposableBean {
+
+    // Walks the (note_id, id) primary key, which every partition has
+    private static final String SELECT_SQL = """
+        SELECT note_id, id, content, body FROM note_revisions
+        WHERE (note_id, id) > (?, ?) AND (content IS NOT NULL OR body IS NOT NULL)
+        ORDER BY note_id, id
+        LIMIT ?
+        FOR UPDATE SKIP LOCKED
+        """;
+
+    private static final String UPDATE_SQL =
+        "UPDATE note_revisions SET blob_hash = ?, body = NULL, content = NULL WHERE note_id = ? AND id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RevisionBlobs revisionBlobs;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration pause;
+    private final Counter moved;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "content-backfill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ContentBackfill(
+        JdbcTemplate jdbcTemplate,
+        TransactionTemplate transactionTemplate,
+        RevisionBlobs revisionBlobs,
+        MeterRegistry meterRegistry,
+        @Value("${revisions.compression.backfill.enabled:true}") boolean enabled,
+        @Value("${revisions.compression.backfill.batch-size:100}") int batchSize,
+        @Value("${revisions.compression.backfill.pause:100ms}") Duration pause
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.revisionBlobs = revisionBlobs;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pause = pause;
+        this.moved = Counter.builder("revisions.backfill.rows").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            executor.execute(this::run);
+        }
+    }
+
+    /**
+     * Moves every remaining row; returns how many this call moved.
+     */
+    public long run() {
+        long total = 0;
+        long afterNote = 0;
+        long after = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            long noteCursor = afterNote;
+            long cursor = after;
+            List<Map<String, Object>> rows = transactionTemplate.execute(status -> backfill(noteCursor, cursor));
+            if (rows.isEmpty()) {
+                break;
+            }
+            total += rows.size();
+            moved.increment(rows.size());
+            afterNote = (Long) rows.get(rows.size() - 1).get("note_id");
+            after = (Long) rows.get(rows.size() - 1).get("id");
+            try {
+                Thread.sleep(pause.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return total;
+    }
+
+    private List<Map<String, Object>> backfill(long afterNote, long after) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(SELECT_SQL, afterNote, after, batchSize);
+        List<RevisionBlobs.Blob> blobs = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            byte[] body = (byte[]) row.get("body");
+            byte[] content = body != null
+                ? ContentCodec.decodeBytes(body)
+                : ((String) row.get("content")).getBytes(StandardCharsets.UTF_8);
+            byte[] hash = ContentCodec.hashBytes(content);
+            row.put("hash", hash);
+            blobs.add(new RevisionBlobs.Blob(hash, content));
+        }
+        revisionBlobs.storeAll(blobs);
+        jdbcTemplate.batchUpdate(UPDATE_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setBytes(1, (byte[]) row.get("hash"));
+            ps.setLong(2, (Long) row.get("note_id"));
+            ps.setLong(3, (Long) row.get("id"));
+        });
+        return rows;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
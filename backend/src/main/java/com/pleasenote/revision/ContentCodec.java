@@ -0,0 +1,121 @@
+package com.pleasenote.revision;
+
+import com.github.luben.zstd.Zstd;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Encodes revision bodies for {@code revision_blobs.body} and {@code note_revisions.body}.
+ *
+ * The first byte is the format: {@link #RAW} for plain UTF-8, {@link #ZSTD}
+ * for a Zstandard frame of it, or {@link #EXTERNAL} for a reference to a body
+ * kept by a {@link ContentStore} outside the database. Bodies shorter than
+ * {@code revisions.compression.threshold} bytes, or that would not shrink, are
+ * stored raw. Decoding only looks at the format byte, so the threshold and
+ * level can change at any time.
+ */
+@Component
+public class ContentCodec {
+
+    public static final byte RAW = 0;
+    public static final byte ZSTD = 1;
+    // Followed by the blob hash; resolved by ContentConverter, never stored
+    public static final byte EXTERNAL = 2;
+
+    public static final int DEFAULT_THRESHOLD = 1024;
+    public static final int DEFAULT_LEVEL = 3;
+
+    private final int threshold;
+    private final int level;
+
+    public ContentCodec(
+        @Value("${revisions.compression.threshold:" + DEFAULT_THRESHOLD + "}") int threshold,
+        @Value("${revisions.compression.level:" + DEFAULT_LEVEL + "}") int level
+    ) {
+        this.threshold = threshold;
+        this.level = level;
+    }
+
+    public byte[] encode(String content) {
+        return content == null ? null : encodeBytes(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Like {@link #encode(String)} for a body already in UTF-8.
+     */
+    public byte[] encodeBytes(byte[] raw) {
+        if (threshold >= 0 && raw.length >= threshold) {
+            byte[] out = new byte[1 + (int) Zstd.compressBound(raw.length)];
+            long size = Zstd.compressByteArray(out, 1, out.length - 1, raw, 0, raw.length, level);
+            if (Zstd.isError(size)) {
+                throw new IllegalStateException("Compression failed: " + Zstd.getErrorName(size));
+            }
+            if (size < raw.length) {
+                out[0] = ZSTD;
+                return Arrays.copyOf(out, 1 + (int) size);
+            }
+        }
+        byte[] out = new byte[1 + raw.length];
+        out[0] = RAW;
+        System.arraycopy(raw, 0, out, 1, raw.length);
+        return out;
+    }
+
+    /**
+     * SHA-256 of the UTF-8 body, the key of {@code revision_blobs}.
+     */
+    public static byte[] hash(String content) {
+        return content == null ? null : hashBytes(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static byte[] hashBytes(byte[] raw) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(raw);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String decode(byte[] body) {
+        if (body == null) {
+            return null;
+        }
+        if (body.length > 0 && body[0] == RAW) {
+            return new String(body, 1, body.length - 1, StandardCharsets.UTF_8);
+        }
+        return new String(decodeBytes(body), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Like {@link #decode(byte[])}, returning the UTF-8 bytes.
+     */
+    public static byte[] decodeBytes(byte[] body) {
+        if (body == null) {
+            return null;
+        }
+        if (body.length == 0) {
+            throw new IllegalArgumentException("Empty revision body");
+        }
+        return switch (body[0]) {
+            case RAW -> Arrays.copyOfRange(body, 1, body.length);
+            case ZSTD -> {
+                long length = Zstd.getFrameContentSize(body, 1, body.length - 1);
+                if (length < 0 || length > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Corrupt compressed revision body");
+                }
+                byte[] raw = new byte[(int) length];
+                long size = Zstd.decompressByteArray(raw, 0, raw.length, body, 1, body.length - 1);
+                if (Zstd.isError(size) || size != length) {
+                    throw new IllegalArgumentException("Corrupt compressed revision body");
+                }
+                yield raw;
+            }
+            default -> throw new IllegalArgumentException("Unknown revision body format " + body[0]);
+        };
+    }
+}
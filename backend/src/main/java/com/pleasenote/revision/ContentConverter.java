@@ -0,0 +1,47 @@
+package com.pleasenote.revision;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Maps {@code NoteRevision} bodies to encoded {@code body} columns through {@link ContentCodec},
+ * reading {@link ContentCodec#EXTERNAL} references from the {@link FileContentStore}.
+ */
+@Component
+@Converter
+public class ContentConverter implements AttributeConverter<String, byte[]> {
+
+    private final ContentCodec codec;
+    private final ObjectProvider<FileContentStore> files;
+
+    public ContentConverter(ContentCodec codec, ObjectProvider<FileContentStore> files) {
+        this.codec = codec;
+        this.files = files;
+    }
+
+    @Override
+    public byte[] convertToDatabaseColumn(String content) {
+        return codec.encode(content);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] body) {
+        if (body == null || body.length == 0 || body[0] != ContentCodec.EXTERNAL) {
+            return ContentCodec.decode(body);
+        }
+        FileContentStore store = files.getIfAvailable();
+        if (store == null) {
+            throw new IllegalStateException("Blob kept in a file but revisions.content-store.path is not set");
+        }
+        byte[] content = store.get(Arrays.copyOfRange(body, 1, body.length));
+        if (content == null) {
+            throw new IllegalStateException("Missing blob file for revision body");
+        }
+        return new String(content, StandardCharsets.UTF_8);
+    }
+}
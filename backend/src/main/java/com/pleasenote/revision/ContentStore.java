@@ -0,0 +1,34 @@
+package com.pleasenote.revision;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * Keeps the bodies of {@code revision_blobs}, as UTF-8, by blob hash.
+ *
+ * Writers insert or lock the blob's {@code revision_blobs} row before calling
+ * {@link #put} and delete it before calling {@link #delete}, in the same
+ * transaction, so a body is never removed while a revision is being pointed at it.
+ */
+public interface ContentStore {
+
+    /**
+     * Stores {@code content} under {@code hash}, keeping an existing body.
+     */
+    void put(byte[] hash, byte[] content);
+
+    /**
+     * The body stored under {@code hash}, or null if there is none.
+     */
+    byte[] get(byte[] hash);
+
+    /**
+     * The body stored under {@code hash} for streaming, or null if there is
+     * none. It can be read after the current transaction has ended.
+     */
+    Resource open(byte[] hash);
+
+    /**
+     * Removes the body stored under {@code hash}, if any.
+     */
+    void delete(byte[] hash);
+}
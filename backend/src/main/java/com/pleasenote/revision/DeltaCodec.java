@@ -0,0 +1,256 @@
+package com.pleasenote.revision;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary copy/insert delta between two byte arrays.
+ *
+ * Format: a version byte, the target length as a varint, then a sequence of
+ * COPY(offset, length) ops referencing the source and INSERT(length, bytes) ops
+ * carrying literal data. Matches are found by trimming the common prefix and
+ * suffix, then indexing fixed-size source blocks and scanning the target with a
+ * rolling hash, so encoding is linear in the size of both inputs.
+ */
+public final class DeltaCodec {
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final int OP_COPY = 1;
+    private static final int OP_INSERT = 2;
+
+    private static final int BLOCK_SIZE = 16;
+    private static final int HASH_BASE = 31;
+    private static final int HASH_BASE_POW;
+
+    static {
+        int pow = 1;
+        for (int i = 0; i < BLOCK_SIZE - 1; i++) {
+            pow *= HASH_BASE;
+        }
+        HASH_BASE_POW = pow;
+    }
+
+    private DeltaCodec() {
+    }
+
+    public static byte[] encode(byte[] source, byte[] target) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.write(FORMAT_VERSION);
+        writeVarint(out, target.length);
+
+        int max = Math.min(source.length, target.length);
+        int prefix = 0;
+        while (prefix < max && source[prefix] == target[prefix]) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+                && source[source.length - 1 - suffix] == target[target.length - 1 - suffix]) {
+            suffix++;
+        }
+
+        if (prefix > 0) {
+            writeCopy(out, 0, prefix);
+        }
+        encodeMiddle(out, source, prefix, source.length - suffix, target, prefix, target.length - suffix);
+        if (suffix > 0) {
+            writeCopy(out, source.length - suffix, suffix);
+        }
+        return out.toByteArray();
+    }
+
+    public static byte[] decode(byte[] source, byte[] delta) {
+        byte[] target = new byte[targetLength(delta)];
+        decode(source, source.length, delta, target);
+        return target;
+    }
+
+    /**
+     * Applies {@code deltas} to {@code source} in order, like repeated {@link #decode}
+     * calls, but rebuilds the intermediate bodies in two reused buffers, so a chain
+     * costs at most three body-sized arrays however long it is.
+     */
+    public static byte[] decodeChain(byte[] source, List<byte[]> deltas) {
+        if (deltas.isEmpty()) {
+            return source;
+        }
+        byte[] current = source;
+        int currentLength = source.length;
+        byte[] spare = null;
+        for (int i = 0; i < deltas.size() - 1; i++) {
+            byte[] delta = deltas.get(i);
+            int length = targetLength(delta);
+            byte[] target = spare != null && spare.length >= length ? spare : new byte[length];
+            decode(current, currentLength, delta, target);
+            spare = current == source ? null : current;
+            current = target;
+            currentLength = length;
+        }
+        byte[] last = deltas.get(deltas.size() - 1);
+        byte[] target = new byte[targetLength(last)];
+        decode(current, currentLength, last, target);
+        return target;
+    }
+
+    private static int targetLength(byte[] delta) {
+        if (delta.length == 0 || delta[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported delta format");
+        }
+        return readVarint(delta, new int[] {1});
+    }
+
+    private static void decode(byte[] source, int sourceLength, byte[] delta, byte[] target) {
+        int[] pos = {1};
+        int targetLength = readVarint(delta, pos);
+        int written = 0;
+
+        while (pos[0] < delta.length) {
+            int op = delta[pos[0]++];
+            if (op == OP_COPY) {
+                int offset = readVarint(delta, pos);
+                int length = readVarint(delta, pos);
+                if (offset + length > sourceLength || written + length > targetLength) {
+                    throw new IllegalArgumentException("Corrupt delta: copy out of range");
+                }
+                System.arraycopy(source, offset, target, written, length);
+                written += length;
+            } else if (op == OP_INSERT) {
+                int length = readVarint(delta, pos);
+                if (pos[0] + length > delta.length || written + length > targetLength) {
+                    throw new IllegalArgumentException("Corrupt delta: insert out of range");
+                }
+                System.arraycopy(delta, pos[0], target, written, length);
+                pos[0] += length;
+                written += length;
+            } else {
+                throw new IllegalArgumentException("Corrupt delta: unknown op " + op);
+            }
+        }
+
+        if (written != targetLength) {
+            throw new IllegalArgumentException("Corrupt delta: expected " + targetLength + " bytes, got " + written);
+        }
+    }
+
+    private static void encodeMiddle(ByteArrayOutputStream out,
+                                     byte[] source, int sourceStart, int sourceEnd,
+                                     byte[] target, int targetStart, int targetEnd) {
+        int blocks = (sourceEnd - sourceStart) / BLOCK_SIZE;
+        if (blocks == 0 || targetEnd - targetStart < BLOCK_SIZE) {
+            writeInsert(out, target, targetStart, targetEnd - targetStart);
+            return;
+        }
+
+        // Open-addressed index of block hash -> source offset (+1 so 0 means empty).
+        int capacity = Integer.highestOneBit(blocks * 2 - 1) << 1;
+        int mask = capacity - 1;
+        int[] keys = new int[capacity];
+        int[] offsets = new int[capacity];
+        for (int offset = sourceStart; offset + BLOCK_SIZE <= sourceEnd; offset += BLOCK_SIZE) {
+            int hash = hash(source, offset);
+            int slot = mix(hash) & mask;
+            while (offsets[slot] != 0 && keys[slot] != hash) {
+                slot = (slot + 1) & mask;
+            }
+            if (offsets[slot] == 0) {
+                keys[slot] = hash;
+                offsets[slot] = offset + 1;
+            }
+        }
+
+        int pending = targetStart;
+        int t = targetStart;
+        int hash = hash(target, t);
+        while (t + BLOCK_SIZE <= targetEnd) {
+            int match = lookup(keys, offsets, mask, hash);
+            if (match >= 0 && Arrays.equals(source, match, match + BLOCK_SIZE, target, t, t + BLOCK_SIZE)) {
+                int s = match;
+                while (t > pending && s > sourceStart && source[s - 1] == target[t - 1]) {
+                    s--;
+                    t--;
+                }
+                int length = 0;
+                while (t + length < targetEnd && s + length < sourceEnd && source[s + length] == target[t + length]) {
+                    length++;
+                }
+                writeInsert(out, target, pending, t - pending);
+                writeCopy(out, s, length);
+                t += length;
+                pending = t;
+                if (t + BLOCK_SIZE <= targetEnd) {
+                    hash = hash(target, t);
+                }
+                continue;
+            }
+            if (t + BLOCK_SIZE < targetEnd) {
+                hash = (hash - target[t] * HASH_BASE_POW) * HASH_BASE + target[t + BLOCK_SIZE];
+            }
+            t++;
+        }
+        writeInsert(out, target, pending, targetEnd - pending);
+    }
+
+    private static int lookup(int[] keys, int[] offsets, int mask, int hash) {
+        int slot = mix(hash) & mask;
+        while (offsets[slot] != 0) {
+            if (keys[slot] == hash) {
+                return offsets[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static int hash(byte[] data, int offset) {
+        int hash = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            hash = hash * HASH_BASE + data[offset + i];
+        }
+        return hash;
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static void writeCopy(ByteArrayOutputStream out, int offset, int length) {
+        out.write(OP_COPY);
+        writeVarint(out, offset);
+        writeVarint(out, length);
+    }
+
+    private static void writeInsert(ByteArrayOutputStream out, byte[] data, int offset, int length) {
+        if (length == 0) {
+            return;
+        }
+        out.write(OP_INSERT);
+        writeVarint(out, length);
+        out.write(data, offset, length);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(byte[] data, int[] pos) {
+        int value = 0;
+        int shift = 0;
+        while (true) {
+            if (pos[0] >= data.length || shift > 28) {
+                throw new IllegalArgumentException("Corrupt delta: bad varint");
+            }
+            byte b = data[pos[0]++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+}
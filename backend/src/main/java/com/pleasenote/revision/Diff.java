@@ -0,0 +1,159 @@
+package com.pleasenote.revision;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Shortest edit script between two token sequences (Myers' O(ND) algorithm).
+ *
+ * The common prefix and suffix are trimmed first, then the remaining range is
+ * split at the middle snake and both halves are diffed recursively, so memory
+ * stays linear. Time is O((N + M) * D) for D differing tokens; once D exceeds
+ * {@code maxCost} the range is reported as one replacement instead, which is
+ * still a correct (if coarser) script.
+ */
+final class Diff {
+
+    /**
+     * Tokens {@code [aStart, aEnd)} of the first sequence are replaced by
+     * {@code [bStart, bEnd)} of the second.
+     */
+    record Edit(int aStart, int aEnd, int bStart, int bEnd) {
+    }
+
+    private final int[] a;
+    private final int[] b;
+    private final int maxCost;
+    private final List<Edit> edits = new ArrayList<>();
+
+    private Diff(int[] a, int[] b, int maxCost) {
+        this.a = a;
+        this.b = b;
+        this.maxCost = maxCost;
+    }
+
+    /**
+     * Edits in ascending order; adjacent edits are coalesced.
+     */
+    static List<Edit> diff(int[] a, int[] b, int maxCost) {
+        Diff diff = new Diff(a, b, maxCost);
+        diff.diff(0, a.length, 0, b.length);
+        return diff.edits;
+    }
+
+    private void diff(int aLo, int aHi, int bLo, int bHi) {
+        while (aLo < aHi && bLo < bHi && a[aLo] == b[bLo]) {
+            aLo++;
+            bLo++;
+        }
+        while (aLo < aHi && bLo < bHi && a[aHi - 1] == b[bHi - 1]) {
+            aHi--;
+            bHi--;
+        }
+        if (aLo == aHi || bLo == bHi) {
+            if (aLo < aHi || bLo < bHi) {
+                add(aLo, aHi, bLo, bHi);
+            }
+            return;
+        }
+        if (!bisect(aLo, aHi, bLo, bHi)) {
+            add(aLo, aHi, bLo, bHi);
+        }
+    }
+
+    /**
+     * Finds the middle snake of the range and recurses on both sides of it.
+     * Returns false when the cost limit is reached first.
+     */
+    private boolean bisect(int aLo, int aHi, int bLo, int bHi) {
+        int n = aHi - aLo;
+        int m = bHi - bLo;
+        int maxD = Math.min((n + m + 1) / 2, maxCost);
+        int offset = maxD;
+        int length = 2 * maxD + 2;
+        int[] forward = new int[length];
+        int[] backward = new int[length];
+        Arrays.fill(forward, -1);
+        Arrays.fill(backward, -1);
+        forward[offset + 1] = 0;
+        backward[offset + 1] = 0;
+        int delta = n - m;
+        boolean odd = (delta & 1) != 0;
+        int k1Start = 0;
+        int k1End = 0;
+        int k2Start = 0;
+        int k2End = 0;
+
+        for (int d = 0; d < maxD; d++) {
+            for (int k1 = -d + k1Start; k1 <= d - k1End; k1 += 2) {
+                int k1Offset = offset + k1;
+                int x1 = k1 == -d || (k1 != d && forward[k1Offset - 1] < forward[k1Offset + 1])
+                    ? forward[k1Offset + 1]
+                    : forward[k1Offset - 1] + 1;
+                int y1 = x1 - k1;
+                while (x1 < n && y1 < m && a[aLo + x1] == b[bLo + y1]) {
+                    x1++;
+                    y1++;
+                }
+                forward[k1Offset] = x1;
+                if (x1 > n) {
+                    k1End += 2;
+                } else if (y1 > m) {
+                    k1Start += 2;
+                } else if (odd) {
+                    int k2Offset = offset + delta - k1;
+                    if (k2Offset >= 0 && k2Offset < length && backward[k2Offset] != -1 && x1 >= n - backward[k2Offset]) {
+                        split(aLo, aHi, bLo, bHi, x1, y1);
+                        return true;
+                    }
+                }
+            }
+
+            for (int k2 = -d + k2Start; k2 <= d - k2End; k2 += 2) {
+                int k2Offset = offset + k2;
+                int x2 = k2 == -d || (k2 != d && backward[k2Offset - 1] < backward[k2Offset + 1])
+                    ? backward[k2Offset + 1]
+                    : backward[k2Offset - 1] + 1;
+                int y2 = x2 - k2;
+                while (x2 < n && y2 < m && a[aHi - x2 - 1] == b[bHi - y2 - 1]) {
+                    x2++;
+                    y2++;
+                }
+                backward[k2Offset] = x2;
+                if (x2 > n) {
+                    k2End += 2;
+                } else if (y2 > m) {
+                    k2Start += 2;
+                } else if (!odd) {
+                    int k1Offset = offset + delta - k2;
+                    if (k1Offset >= 0 && k1Offset < length && forward[k1Offset] != -1) {
+                        int x1 = forward[k1Offset];
+                        int y1 = offset + x1 - k1Offset;
+                        if (x1 >= n - x2) {
+                            split(aLo, aHi, bLo, bHi, x1, y1);
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private void split(int aLo, int aHi, int bLo, int bHi, int x, int y) {
+        diff(aLo, aLo + x, bLo, bLo + y);
+        diff(aLo + x, aHi, bLo + y, bHi);
+    }
+
+    private void add(int aStart, int aEnd, int bStart, int bEnd) {
+        if (!edits.isEmpty()) {
+            Edit last = edits.get(edits.size() - 1);
+            if (last.aEnd() == aStart && last.bEnd() == bStart) {
+                edits.set(edits.size() - 1, new Edit(last.aStart(), aEnd, last.bStart(), bEnd));
+                return;
+            }
+        }
+        edits.add(new Edit(aStart, aEnd, bStart, bEnd));
+    }
+}
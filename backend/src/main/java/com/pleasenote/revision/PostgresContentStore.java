@@ -0,0 +1,50 @@
+package com.pleasenote.revision;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Keeps bodies inline in {@code revision_blobs.body}, encoded by {@link ContentCodec}.
+ *
+ * Commits write the body in the same statement that inserts the blob row, so
+ * {@link #put} is only needed for rows inserted without one.
+ */
+@Component
+public class PostgresContentStore implements ContentStore {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ContentCodec codec;
+
+    public PostgresContentStore(JdbcTemplate jdbcTemplate, ContentCodec codec) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.codec = codec;
+    }
+
+    @Override
+    public void put(byte[] hash, byte[] content) {
+        jdbcTemplate.update("UPDATE revision_blobs SET body = ? WHERE hash = ? AND body IS NULL",
+            codec.encodeBytes(content), hash);
+    }
+
+    @Override
+    public byte[] get(byte[] hash) {
+        List<byte[]> bodies = jdbcTemplate.queryForList(
+            "SELECT body FROM revision_blobs WHERE hash = ? AND body IS NOT NULL", byte[].class, hash);
+        return bodies.isEmpty() ? null : ContentCodec.decodeBytes(bodies.get(0));
+    }
+
+    @Override
+    public Resource open(byte[] hash) {
+        byte[] content = get(hash);
+        return content == null ? null : new ByteArrayResource(content);
+    }
+
+    @Override
+    public void delete(byte[] hash) {
+        // The body goes with its row
+    }
+}
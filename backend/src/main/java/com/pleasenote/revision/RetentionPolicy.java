@@ -0,0 +1,70 @@
+package com.pleasenote.revision;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Which revisions of a note to keep.
+ *
+ * The newest {@code keepLast} revisions (at least the head) are always kept.
+ * Older ones are kept while younger than the first checkpoint tier; from
+ * {@code hourlyAfter} on only the last revision of each UTC hour survives, and
+ * from {@code dailyAfter} on only the last of each UTC day. A zero duration
+ * turns its tier off; with both off only the newest {@code keepLast} remain.
+ */
+public record RetentionPolicy(int keepLast, Duration hourlyAfter, Duration dailyAfter) {
+
+    public record Revision(long id, int revisionNumber, Instant createdAt) {
+    }
+
+    /**
+     * Whether the policy keeps every revision, i.e. is switched off.
+     */
+    public boolean keepsAll() {
+        return keepLast <= 0 && hourlyAfter.isZero() && dailyAfter.isZero();
+    }
+
+    /**
+     * Ids of the expired revisions among a note's {@code revisions}, given in
+     * ascending revision number.
+     */
+    public Set<Long> expired(List<Revision> revisions, Instant now) {
+        Set<Long> expired = new HashSet<>();
+        if (keepsAll()) {
+            return expired;
+        }
+        Duration recent = hourlyAfter.isZero() ? dailyAfter
+            : dailyAfter.isZero() ? hourlyAfter
+            : hourlyAfter.compareTo(dailyAfter) < 0 ? hourlyAfter : dailyAfter;
+        int protectedFrom = revisions.size() - Math.max(keepLast, 1);
+
+        for (int i = 0; i < protectedFrom; i++) {
+            Revision revision = revisions.get(i);
+            if (revision.createdAt() == null) {
+                continue;
+            }
+            Duration age = Duration.between(revision.createdAt(), now);
+            Instant next = revisions.get(i + 1).createdAt();
+            boolean keep;
+            if (!dailyAfter.isZero() && age.compareTo(dailyAfter) >= 0) {
+                keep = next == null || !sameBucket(revision.createdAt(), next, ChronoUnit.DAYS);
+            } else if (!hourlyAfter.isZero() && age.compareTo(hourlyAfter) >= 0) {
+                keep = next == null || !sameBucket(revision.createdAt(), next, ChronoUnit.HOURS);
+            } else {
+                keep = age.compareTo(recent) < 0;
+            }
+            if (!keep) {
+                expired.add(revision.id());
+            }
+        }
+        return expired;
+    }
+
+    private static boolean sameBucket(Instant a, Instant b, ChronoUnit unit) {
+        return a.truncatedTo(unit).equals(b.truncatedTo(unit));
+    }
+}
@@ -0,0 +1,166 @@
+package com.pleasenote.revision;
+
+import com.pleasenote.model.NoteRevision;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes and prunes the content-addressed snapshot bodies in {@code revision_blobs}.
+ *
+ * A blob is keyed by {@link ContentCodec#hashBytes} of its body, so every revision
+ * with the same body shares one row. Bodies of at least
+ * {@code revisions.content-store.file-threshold} bytes go to the
+ * {@link FileContentStore} when one is configured, leaving {@code body} null;
+ * the rest are kept inline by {@link PostgresContentStore}.
+ *
+ * Inserting a blob that exists writes nothing but locks it, so a concurrent
+ * {@link #deleteUnreferenced} either runs first and the insert writes a fresh
+ * row, or fails on {@code fk_revision_blob} and leaves the blob alone.
+ */
+@Component
+public class RevisionBlobs {
+
+    public static final int DEFAULT_FILE_THRESHOLD = 1024 * 1024;
+
+    public static final String INSERT_SQL = """
+        INSERT INTO revision_blobs (hash, body) VALUES (?, ?)
+        ON CONFLICT (hash) DO UPDATE SET hash = EXCLUDED.hash WHERE false
+        """;
+
+    private static final String DELETE_UNREFERENCED_SQL = """
+        DELETE FROM revision_blobs b
+        WHERE b.hash = ANY(?) AND NOT EXISTS (SELECT 1 FROM note_revisions r WHERE r.blob_hash = b.hash)
+        RETURNING b.hash, b.body IS NULL AS external
+        """;
+
+    /**
+     * A body in UTF-8 with its hash.
+     */
+    public record Blob(byte[] hash, byte[] content) {
+
+        public static Blob of(NoteRevision revision) {
+            return new Blob(revision.getBlobHash(), revision.getContentBytes());
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ContentCodec codec;
+    private final PostgresContentStore inline;
+    private final FileContentStore files;
+    private final int fileThreshold;
+
+    public RevisionBlobs(
+        JdbcTemplate jdbcTemplate,
+        TransactionTemplate transactionTemplate,
+        ContentCodec codec,
+        PostgresContentStore inline,
+        ObjectProvider<FileContentStore> files,
+        @Value("${revisions.content-store.file-threshold:" + DEFAULT_FILE_THRESHOLD + "}") int fileThreshold
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.codec = codec;
+        this.inline = inline;
+        this.files = files.getIfAvailable();
+        this.fileThreshold = fileThreshold;
+    }
+
+    /**
+     * The store for a body of {@code length} bytes.
+     */
+    public ContentStore storeFor(int length) {
+        return files != null && length >= fileThreshold ? files : inline;
+    }
+
+    /**
+     * The store holding a blob whose row has a null {@code body} when {@code external}.
+     */
+    public ContentStore storeOf(boolean external) {
+        if (external && files == null) {
+            throw new IllegalStateException("Blob kept in a file but revisions.content-store.path is not set");
+        }
+        return external ? files : inline;
+    }
+
+    /**
+     * The value for {@code revision_blobs.body} when inserting {@code blob}: its
+     * encoding if it stays inline, null if {@link #putExternal} stores it.
+     */
+    public byte[] inlineBody(Blob blob) {
+        return storeFor(blob.content().length) == inline ? codec.encodeBytes(blob.content()) : null;
+    }
+
+    /**
+     * Stores {@code blob} in its file once its row has been inserted or locked.
+     */
+    public void putExternal(Blob blob) {
+        ContentStore store = storeFor(blob.content().length);
+        if (store != inline) {
+            store.put(blob.hash(), blob.content());
+        }
+    }
+
+    /**
+     * Inserts the blobs of the snapshot rows among {@code revisions} that do not exist yet.
+     */
+    public void store(List<NoteRevision> revisions) {
+        List<Blob> blobs = new ArrayList<>();
+        for (NoteRevision revision : revisions) {
+            if (revision.getBlobHash() != null) {
+                blobs.add(Blob.of(revision));
+            }
+        }
+        storeAll(blobs);
+    }
+
+    /**
+     * Inserts {@code blobs} that do not exist yet.
+     */
+    public void storeAll(List<Blob> blobs) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, blobs, blobs.size(), (ps, blob) -> {
+            ps.setBytes(1, blob.hash());
+            ps.setBytes(2, inlineBody(blob));
+        });
+        for (Blob blob : blobs) {
+            putExternal(blob);
+        }
+    }
+
+    /**
+     * Deletes those of {@code hashes} that no revision references any more, in a
+     * transaction of its own; returns how many went.
+     */
+    public int deleteUnreferenced(Collection<byte[]> hashes) {
+        if (hashes.isEmpty()) {
+            return 0;
+        }
+        try {
+            return transactionTemplate.execute(status -> {
+                List<byte[]> external = new ArrayList<>();
+                List<Boolean> deleted = jdbcTemplate.query(DELETE_UNREFERENCED_SQL, (rs, i) -> {
+                    if (rs.getBoolean("external")) {
+                        external.add(rs.getBytes("hash"));
+                    }
+                    return true;
+                }, (Object) hashes.toArray(byte[][]::new));
+                // Still holding the deleted rows, so no commit can point a revision at them
+                for (byte[] hash : external) {
+                    storeOf(true).delete(hash);
+                }
+                return deleted.size();
+            });
+        } catch (DataIntegrityViolationException e) {
+            // A commit started referencing one of them meanwhile
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.pleasenote.revision;
+
+import com.pleasenote.events.RevisionsCompacted;
+import com.pleasenote.model.NoteRevision;
+import com.pleasenote.repository.NoteRevisionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes expired revisions according to each note owner's {@link RetentionPolicy}.
+ *
+ * With {@code revisions.retention.enabled=true} a background pass runs every
+ * {@code revisions.retention.interval}, walking notes in id order
+ * {@code revisions.retention.batch-size} at a time. The policy is the owner's
+ * {@code retention_policies} row or else the global
+ * {@code revisions.retention.keep-last}/{@code hourly-after}/{@code daily-after}.
+ *
+ * Expired revisions are removed one delta chain per transaction: the chain's
+ * rows are locked, the expired ones deleted and every kept row after the first
+ * gap re-encoded against the kept row before it (or as a snapshot), so every
+ * remaining revision stays readable under its original number. The chain
+ * holding the head is never touched, since commits encode against it without
+ * locking; its rows are compacted once a later snapshot starts a new chain.
+ * Blobs the rewritten rows no longer reference are then deleted unless another
+ * revision shares them. A chain that lost revisions bumps the note's
+ * {@code history_version} and publishes {@link RevisionsCompacted}, so history
+ * ETags change. Deleted revisions are counted as {@code revisions.compacted}.
+ */
+@Component
+public class RevisionCompactor implements DisposableBean {
+
+    private static final String NOTES_SQL = """
+        SELECT n.id, n.head_revision_number, p.keep_last, p.hourly_after_seconds, p.daily_after_seconds
+        FROM notes n
+        LEFT JOIN retention_policies p ON p.user_id = n.user_id
+        WHERE n.id > ?
+        ORDER BY n.id
+        LIMIT ?
+        """;
+
+    private static final String REVISIONS_SQL = """
+        SELECT id, revision_number, base_revision_number, created_at
+        FROM note_revisions
+        WHERE note_id = ?
+        ORDER BY revision_number
+        """;
+
+    private static final String BUMP_HISTORY_SQL = "UPDATE notes SET history_version = history_version + 1 WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final NoteRevisionRepository revisionRepository;
+    private final RevisionStore revisionStore;
+    private final RevisionBlobs revisionBlobs;
+    private final ApplicationEventPublisher publisher;
+    private final RetentionPolicy defaultPolicy;
+    private final boolean enabled;
+    private final Duration interval;
+    private final int batchSize;
+    private final Counter deleted;
+    private final Counter failed;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "revision-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RevisionCompactor(
+        JdbcTemplate jdbcTemplate,
+        TransactionTemplate transactionTemplate,
+        NoteRevisionRepository revisionRepository,
+        RevisionStore revisionStore,
+        RevisionBlobs revisionBlobs,
+        ApplicationEventPublisher publisher,
+        MeterRegistry meterRegistry,
+        @Value("${revisions.retention.enabled:false}") boolean enabled,
+        @Value("${revisions.retention.keep-last:100}") int keepLast,
+        @Value("${revisions.retention.hourly-after:1d}") Duration hourlyAfter,
+        @Value("${revisions.retention.daily-after:30d}") Duration dailyAfter,
+        @Value("${revisions.retention.interval:10m}") Duration interval,
+        @Value("${revisions.retention.batch-size:100}") int batchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.revisionRepository = revisionRepository;
+        this.revisionStore = revisionStore;
+        this.revisionBlobs = revisionBlobs;
+        this.publisher = publisher;
+        this.defaultPolicy = new RetentionPolicy(keepLast, hourlyAfter, dailyAfter);
+        this.enabled = enabled;
+        this.interval = interval;
+        this.batchSize = batchSize;
+        this.deleted = Counter.builder("revisions.compacted").register(meterRegistry);
+        this.failed = Counter.builder("revisions.compaction.failures").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            scheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    compactAll();
+                } catch (RuntimeException e) {
+                    // A failed chain was rolled back; the next pass retries it
+                    failed.increment();
+                }
+            }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * One pass over every note; returns the number of revisions deleted.
+     */
+    public long compactAll() {
+        long total = 0;
+        long after = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Map<String, Object>> notes = jdbcTemplate.queryForList(NOTES_SQL, after, batchSize);
+            if (notes.isEmpty()) {
+                break;
+            }
+            for (Map<String, Object> note : notes) {
+                total += compact((Long) note.get("id"), (Integer) note.get("head_revision_number"), policy(note));
+            }
+            after = (Long) notes.get(notes.size() - 1).get("id");
+        }
+        return total;
+    }
+
+    private RetentionPolicy policy(Map<String, Object> note) {
+        if (note.get("keep_last") == null) {
+            return defaultPolicy;
+        }
+        return new RetentionPolicy((Integer) note.get("keep_last"),
+            Duration.ofSeconds((Long) note.get("hourly_after_seconds")),
+            Duration.ofSeconds((Long) note.get("daily_after_seconds")));
+    }
+
+    /**
+     * Applies {@code policy} to one note; returns the number of revisions deleted.
+     */
+    public int compact(long noteId, int headRevisionNumber, RetentionPolicy policy) {
+        if (policy.keepsAll() || headRevisionNumber <= policy.keepLast()) {
+            return 0;
+        }
+
+        List<RetentionPolicy.Revision> revisions = new ArrayList<>();
+        Map<Long, Integer> bases = new HashMap<>();
+        jdbcTemplate.query(REVISIONS_SQL, rs -> {
+            long id = rs.getLong("id");
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            revisions.add(new RetentionPolicy.Revision(id, rs.getInt("revision_number"),
+                createdAt == null ? null : createdAt.toInstant()));
+            bases.put(id, rs.getInt("base_revision_number"));
+        }, noteId);
+        if (revisions.isEmpty()) {
+            return 0;
+        }
+        int headBase = bases.get(revisions.get(revisions.size() - 1).id());
+
+        // Expired revisions by the chain they belong to, leaving the head's chain alone
+        Map<Integer, Set<Long>> chains = new TreeMap<>();
+        for (long id : policy.expired(revisions, Instant.now())) {
+            int base = bases.get(id);
+            if (base < headBase) {
+                chains.computeIfAbsent(base, key -> new TreeSet<>()).add(id);
+            }
+        }
+
+        int count = 0;
+        List<byte[]> released = new ArrayList<>();
+        for (Map.Entry<Integer, Set<Long>> chain : chains.entrySet()) {
+            count += transactionTemplate.execute(
+                status -> compactChain(noteId, chain.getKey(), chain.getValue(), released));
+        }
+        revisionBlobs.deleteUnreferenced(released);
+        deleted.increment(count);
+        return count;
+    }
+
+    /**
+     * Rewrites one chain; adds the blobs its rows stopped referencing to {@code released}.
+     */
+    private int compactChain(long noteId, int base, Set<Long> expired, List<byte[]> released) {
+        List<NoteRevision> chain = revisionRepository.findByNoteIdAndBaseRevisionNumberOrderByRevisionNumber(noteId, base);
+        if (chain.isEmpty() || !chain.get(0).isSnapshot()) {
+            // Already rewritten by a concurrent pass
+            return 0;
+        }
+        List<String> contents = revisionStore.readContents(chain);
+
+        int count = 0;
+        List<NoteRevision> reencoded = new ArrayList<>();
+        NoteRevision previous = null;
+        String previousContent = null;
+        boolean gap = false;
+        for (int i = 0; i < chain.size(); i++) {
+            NoteRevision revision = chain.get(i);
+            byte[] blobHash = revision.getBlobHash();
+            if (expired.contains(revision.getId())) {
+                revisionRepository.delete(revision);
+                gap = true;
+                count++;
+                if (blobHash != null) {
+                    released.add(blobHash);
+                }
+                continue;
+            }
+            if (gap) {
+                revisionStore.reencode(revision, previous, previousContent, contents.get(i));
+                reencoded.add(revision);
+                if (blobHash != null && !Arrays.equals(blobHash, revision.getBlobHash())) {
+                    released.add(blobHash);
+                }
+            }
+            previous = revision;
+            previousContent = contents.get(i);
+        }
+        // Blobs of new snapshots must exist before the rows are flushed at commit
+        revisionBlobs.store(reencoded);
+        if (count > 0) {
+            jdbcTemplate.update(BUMP_HISTORY_SQL, noteId);
+            publisher.publishEvent(new RevisionsCompacted(noteId));
+        }
+        return count;
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,143 @@
+package com.pleasenote.revision;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pleasenote.model.Note;
+import com.pleasenote.repository.NoteRevisionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Line diffs between two revisions of a note, as unified-diff hunks.
+ *
+ * Both bodies are rebuilt in one chain query and diffed on the server, so a
+ * client receives only the changed lines and their context. A revision's
+ * content never changes once written, but retention may delete the revision,
+ * so results are cached by the ids the requested numbers have now and the
+ * context size: a deleted revision is never served from the cache. The cache
+ * is bounded to {@code revisions.diff-cache.max-chars} characters of hunk text
+ * (0 disables it).
+ */
+@Service
+public class RevisionDiff {
+
+    public static final int MAX_CONTEXT = 100;
+
+    /**
+     * Diff cost beyond which the differing range is shown as wholly replaced.
+     */
+    static final int MAX_DIFF_COST = 10_000;
+
+    /**
+     * Lines {@code fromLine..fromLine+fromCount-1} of the older revision became
+     * {@code toLine..toLine+toCount-1} of the newer one (1-based). Each of
+     * {@code lines} is prefixed with {@code ' '} (context), {@code '-'} or
+     * {@code '+'} and keeps its line terminator.
+     */
+    public record Hunk(int fromLine, int fromCount, int toLine, int toCount, List<String> lines) {
+    }
+
+    private record Key(long fromId, long toId, int context) {
+    }
+
+    private final NoteRevisionRepository revisionRepository;
+    private final RevisionStore revisionStore;
+    private final Cache<Key, List<Hunk>> cache;
+
+    public RevisionDiff(
+        NoteRevisionRepository revisionRepository,
+        RevisionStore revisionStore,
+        @Value("${revisions.diff-cache.max-chars:16777216}") long cacheMaxChars
+    ) {
+        this.revisionRepository = revisionRepository;
+        this.revisionStore = revisionStore;
+        this.cache = cacheMaxChars <= 0 ? null : Caffeine.newBuilder()
+            .maximumWeight(cacheMaxChars)
+            .weigher((Key key, List<Hunk> hunks) -> weight(hunks))
+            .build();
+    }
+
+    /**
+     * Hunks turning revision number {@code from} of {@code note} into {@code to},
+     * or null if either does not exist.
+     */
+    public List<Hunk> diff(Note note, int from, int to, int context) {
+        Map<Integer, Long> ids = new HashMap<>();
+        for (Object[] row : revisionRepository.findIdsByNoteAndRevisionNumberIn(note, List.of(from, to))) {
+            ids.put((Integer) row[0], (Long) row[1]);
+        }
+        if (!ids.containsKey(from) || !ids.containsKey(to)) {
+            return null;
+        }
+        Key key = new Key(ids.get(from), ids.get(to), context);
+        List<Hunk> cached = cache == null ? null : cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Map<Long, RevisionStore.Loaded> loaded = revisionStore.load(List.of(note.getId()), ids.values());
+        List<Hunk> hunks = hunks(loaded.get(ids.get(from)).content(), loaded.get(ids.get(to)).content(), context);
+        if (cache != null) {
+            cache.put(key, hunks);
+        }
+        return hunks;
+    }
+
+    static List<Hunk> hunks(String before, String after, int context) {
+        Map<String, Integer> ids = new HashMap<>();
+        Tokens a = Tokens.lines(before == null ? "" : before, ids);
+        Tokens b = Tokens.lines(after == null ? "" : after, ids);
+        List<Diff.Edit> edits = Diff.diff(a.ids, b.ids, MAX_DIFF_COST);
+
+        List<Hunk> hunks = new ArrayList<>();
+        int i = 0;
+        while (i < edits.size()) {
+            // Edits closer than two contexts apart share a hunk
+            int j = i + 1;
+            while (j < edits.size() && edits.get(j).aStart() - edits.get(j - 1).aEnd() <= 2 * context) {
+                j++;
+            }
+            Diff.Edit first = edits.get(i);
+            Diff.Edit last = edits.get(j - 1);
+            int aStart = Math.max(0, first.aStart() - context);
+            int aEnd = Math.min(a.ids.length, last.aEnd() + context);
+            int bStart = first.bStart() - (first.aStart() - aStart);
+            int bEnd = last.bEnd() + (aEnd - last.aEnd());
+
+            List<String> lines = new ArrayList<>();
+            int position = aStart;
+            for (int e = i; e < j; e++) {
+                Diff.Edit edit = edits.get(e);
+                addLines(lines, ' ', a, position, edit.aStart());
+                addLines(lines, '-', a, edit.aStart(), edit.aEnd());
+                addLines(lines, '+', b, edit.bStart(), edit.bEnd());
+                position = edit.aEnd();
+            }
+            addLines(lines, ' ', a, position, aEnd);
+            hunks.add(new Hunk(aStart + 1, aEnd - aStart, bStart + 1, bEnd - bStart, lines));
+            i = j;
+        }
+        return hunks;
+    }
+
+    private static void addLines(List<String> lines, char prefix, Tokens tokens, int from, int to) {
+        for (int t = from; t < to; t++) {
+            lines.add(prefix + tokens.text(t, t + 1));
+        }
+    }
+
+    private static int weight(List<Hunk> hunks) {
+        long chars = 0;
+        for (Hunk hunk : hunks) {
+            for (String line : hunk.lines()) {
+                chars += line.length();
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, chars + 16L * hunks.size());
+    }
+}
@@ -0,0 +1,192 @@
+package com.pleasenote.revision;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.pleasenote.metrics.StageTimers;
+import com.pleasenote.model.Note;
+import com.pleasenote.model.NoteRevision;
+import com.pleasenote.repository.NoteRevisionRepository;
+import com.pleasenote.repository.RevisionSummary;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Keyset-paginated reads of a note's history on {@code revision_number}.
+ *
+ * Rows are fetched lazily in batches while the response is serialized, so only
+ * one batch is on the heap at a time however long the history is. Loaded
+ * revisions are detached after use to keep the open-in-view persistence
+ * context from growing with the history.
+ */
+@Component
+public class RevisionHistory {
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private final NoteRevisionRepository revisionRepository;
+    private final RevisionStore revisionStore;
+    private final EntityManager entityManager;
+    private final StageTimers.Stage queryTimer;
+    private final StageTimers.Stage decodeTimer;
+    private final int batchSize;
+
+    public RevisionHistory(
+        NoteRevisionRepository revisionRepository,
+        RevisionStore revisionStore,
+        EntityManager entityManager,
+        StageTimers stageTimers,
+        @Value("${revisions.history-batch-size:100}") int batchSize
+    ) {
+        this.revisionRepository = revisionRepository;
+        this.revisionStore = revisionStore;
+        this.entityManager = entityManager;
+        this.queryTimer = stageTimers.stage("notes.history", "query");
+        this.decodeTimer = stageTimers.stage("notes.history", "decode");
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Every revision after {@code after}, serialized as a JSON array as it is read.
+     */
+    public Iterable<Map<String, Object>> all(Note note, int after, boolean summary) {
+        return new Rows(note, after, Integer.MAX_VALUE, summary);
+    }
+
+    /**
+     * At most {@code limit} revisions after {@code after}, plus the cursor to pass
+     * as {@code after} for the next page.
+     */
+    public Page page(Note note, int after, int limit, boolean summary) {
+        return new Page(new Rows(note, after, limit, summary));
+    }
+
+    /**
+     * Properties are serialized in order, so {@code nextCursor} is read only
+     * after the revisions have been streamed.
+     */
+    @JsonPropertyOrder({"revisions", "nextCursor"})
+    public class Page {
+
+        private final Rows rows;
+
+        private Page(Rows rows) {
+            this.rows = rows;
+        }
+
+        public Iterable<Map<String, Object>> getRevisions() {
+            return rows;
+        }
+
+        public Integer getNextCursor() {
+            return rows.hasMoreAfterLimit() ? rows.cursor : null;
+        }
+    }
+
+    private class Rows implements Iterable<Map<String, Object>>, Iterator<Map<String, Object>> {
+
+        private final Note note;
+        private final boolean summary;
+        private int cursor;
+        private int remaining;
+        private boolean exhausted;
+        private boolean started;
+        private Iterator<Map<String, Object>> batch = Collections.emptyIterator();
+
+        // Last row of the previous batch, so the next batch can continue its delta chain
+        private NoteRevision previous;
+        private String previousContent;
+
+        private Rows(Note note, int after, int limit, boolean summary) {
+            this.note = note;
+            this.cursor = after;
+            this.remaining = limit;
+            this.summary = summary;
+        }
+
+        @Override
+        public Iterator<Map<String, Object>> iterator() {
+            if (started) {
+                throw new IllegalStateException("Revision history can only be iterated once");
+            }
+            started = true;
+            return this;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!batch.hasNext() && !exhausted && remaining > 0) {
+                batch = fetch(Math.min(batchSize, remaining)).iterator();
+            }
+            return batch.hasNext();
+        }
+
+        @Override
+        public Map<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            remaining--;
+            return batch.next();
+        }
+
+        boolean hasMoreAfterLimit() {
+            if (exhausted || remaining > 0) {
+                return false;
+            }
+            return revisionRepository.existsByNoteAndRevisionNumberGreaterThan(note, cursor);
+        }
+
+        private List<Map<String, Object>> fetch(int size) {
+            PageRequest page = PageRequest.of(0, size);
+            List<Map<String, Object>> result = new ArrayList<>(size);
+            long start = System.nanoTime();
+
+            if (summary) {
+                List<RevisionSummary> rows = revisionRepository.findSummariesByNote(note, cursor, page);
+                queryTimer.record(start);
+                for (RevisionSummary r : rows) {
+                    result.add(Map.of(
+                        "revisionId", r.getId(),
+                        "revisionNumber", r.getRevisionNumber(),
+                        "createdAt", r.getCreatedAt()
+                    ));
+                    cursor = r.getRevisionNumber();
+                }
+                exhausted = rows.size() < size;
+                return result;
+            }
+
+            List<NoteRevision> rows = revisionRepository
+                .findByNoteAndRevisionNumberGreaterThanOrderByRevisionNumber(note, cursor, page);
+            start = queryTimer.record(start);
+            List<String> contents = revisionStore.readContents(rows, previous, previousContent);
+            decodeTimer.record(start);
+            for (int i = 0; i < rows.size(); i++) {
+                NoteRevision r = rows.get(i);
+                String content = contents.get(i);
+                result.add(Map.of(
+                    "revisionId", r.getId(),
+                    "revisionNumber", r.getRevisionNumber(),
+                    "content", content != null ? content : "",
+                    "createdAt", r.getCreatedAt()
+                ));
+                cursor = r.getRevisionNumber();
+                entityManager.detach(r);
+            }
+            if (!rows.isEmpty()) {
+                previous = rows.get(rows.size() - 1);
+                previousContent = contents.get(contents.size() - 1);
+            }
+            exhausted = rows.size() < size;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.pleasenote.revision;
+
+import com.pleasenote.model.Note;
+import com.pleasenote.model.NoteRevision;
+import com.pleasenote.repository.NoteRevisionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores revision bodies as periodic full snapshots with deltas in between.
+ *
+ * Each delta is taken against the previous revision of the same chain; a new
+ * snapshot is written once a chain reaches {@code revisions.snapshot-interval}
+ * rows, or whenever the delta would not be smaller than the body itself.
+ * Reading any revision is one range query from its chain's snapshot.
+ */
+@Service
+public class RevisionStore {
+
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 32;
+
+    /**
+     * A revision together with its reconstructed body.
+     */
+    public record Loaded(NoteRevision revision, String content) {
+    }
+
+    private final NoteRevisionRepository revisionRepository;
+    private final int snapshotInterval;
+
+    public RevisionStore(
+        NoteRevisionRepository revisionRepository,
+        @Value("${revisions.snapshot-interval:" + DEFAULT_SNAPSHOT_INTERVAL + "}") int snapshotInterval
+    ) {
+        if (snapshotInterval < 1) {
+            throw new IllegalArgumentException("revisions.snapshot-interval must be at least 1");
+        }
+        this.revisionRepository = revisionRepository;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    /**
+     * Appends a revision after {@code previous}, or the first revision when it is null.
+     */
+    public NoteRevision append(Note note, NoteRevision previous, String content) {
+        return revisionRepository.save(prepare(note, previous, content));
+    }
+
+    /**
+     * Builds, without saving, the revision that would follow {@code previous}.
+     */
+    public NoteRevision prepare(Note note, NoteRevision previous, String content) {
+        return prepare(note, previous, previous == null ? null : readContent(previous), content);
+    }
+
+    /**
+     * Like {@link #prepare(Note, NoteRevision, String)} when the body of
+     * {@code previous} is already known.
+     */
+    public NoteRevision prepare(Note note, NoteRevision previous, String previousContent, String content) {
+        NoteRevision revision = new NoteRevision();
+        revision.setNote(note);
+        revision.setRevisionNumber(previous == null ? 1 : previous.getRevisionNumber() + 1);
+        revision.setCreatedAt(OffsetDateTime.now());
+        encode(revision, previous, previousContent, content);
+        return revision;
+    }
+
+    /**
+     * Re-encodes an existing {@code revision} with body {@code content} against a
+     * new {@code previous}, or as a snapshot when that is null; used when the rows
+     * between them are removed.
+     */
+    public void reencode(NoteRevision revision, NoteRevision previous, String previousContent, String content) {
+        encode(revision, previous, previousContent, content);
+    }
+
+    /**
+     * Fills in the stored body of {@code revision}, either as a snapshot or as a
+     * delta against {@code previous} whose full body is {@code previousContent}.
+     */
+    private void encode(NoteRevision revision, NoteRevision previous, String previousContent, String content) {
+        boolean chainFull = previous == null
+            || revision.getRevisionNumber() - previous.getBaseRevisionNumber() >= snapshotInterval;
+        byte[] target = content == null ? null : content.getBytes(StandardCharsets.UTF_8);
+        if (!chainFull && target != null && previousContent != null) {
+            byte[] delta = DeltaCodec.encode(previousContent.getBytes(StandardCharsets.UTF_8), target);
+            if (delta.length < target.length) {
+                revision.setContent(null);
+                revision.setDelta(delta);
+                revision.setBaseRevisionNumber(previous.getBaseRevisionNumber());
+                return;
+            }
+        }
+        revision.setContent(content, target);
+        revision.setDelta(null);
+        revision.setBaseRevisionNumber(revision.getRevisionNumber());
+    }
+
+    public String readContent(NoteRevision revision) {
+        if (revision.isSnapshot()) {
+            return revision.getContent();
+        }
+        List<NoteRevision> chain = revisionRepository.findByNoteAndRevisionNumberBetweenOrderByRevisionNumber(
+            revision.getNote(), revision.getBaseRevisionNumber(), revision.getRevisionNumber());
+        if (chain.isEmpty() || !chain.get(0).isSnapshot()) {
+            throw new IllegalStateException("Missing snapshot for revision " + revision.getId());
+        }
+        List<byte[]> deltas = new ArrayList<>(chain.size() - 1);
+        for (int i = 1; i < chain.size(); i++) {
+            deltas.add(chain.get(i).getDelta());
+        }
+        return new String(DeltaCodec.decodeChain(bytes(chain.get(0).getContent()), deltas), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Loads revisions of any of {@code noteIds} by id with their bodies, reading
+     * all of their chains in one query. Ids that do not exist, or belong to
+     * another note, are absent from the result.
+     */
+    public Map<Long, Loaded> load(Collection<Long> noteIds, Collection<Long> ids) {
+        Map<Long, Loaded> loaded = new HashMap<>();
+        if (ids.isEmpty()) {
+            return loaded;
+        }
+        long current = -1;
+        NoteRevision snapshot = null;
+        List<byte[]> deltas = new ArrayList<>();
+        NoteRevision last = null;
+        for (Object[] row : revisionRepository.findChainsByNoteIdInAndIdIn(noteIds, ids)) {
+            long id = (Long) row[0];
+            NoteRevision revision = (NoteRevision) row[1];
+            if (id != current) {
+                if (last != null) {
+                    loaded.put(current, loaded(last, snapshot, deltas));
+                }
+                if (!revision.isSnapshot()) {
+                    throw new IllegalStateException("Missing snapshot for revision " + id);
+                }
+                current = id;
+                snapshot = revision;
+                deltas.clear();
+            } else {
+                deltas.add(revision.getDelta());
+            }
+            last = revision;
+        }
+        if (last != null) {
+            loaded.put(current, loaded(last, snapshot, deltas));
+        }
+        return loaded;
+    }
+
+    private static Loaded loaded(NoteRevision revision, NoteRevision snapshot, List<byte[]> deltas) {
+        if (deltas.isEmpty()) {
+            return new Loaded(revision, revision.getContent());
+        }
+        byte[] body = DeltaCodec.decodeChain(bytes(snapshot.getContent()), deltas);
+        return new Loaded(revision, new String(body, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reconstructs the bodies of consecutive revisions of one note, given in
+     * ascending order. Deltas are applied incrementally along the list; only a
+     * leading revision whose snapshot is not in the list costs an extra query.
+     */
+    public List<String> readContents(List<NoteRevision> revisions) {
+        return readContents(revisions, null, null);
+    }
+
+    /**
+     * Like {@link #readContents(List)}, continuing from {@code previous} (with body
+     * {@code previousContent}), the row immediately before the list, so a page of
+     * history can be decoded without re-reading its chain.
+     */
+    public List<String> readContents(List<NoteRevision> revisions, NoteRevision previous, String previousContent) {
+        List<String> contents = new ArrayList<>(revisions.size());
+        byte[] previousBytes = previous == null ? null : bytes(previousContent);
+
+        for (NoteRevision revision : revisions) {
+            String content;
+            if (revision.isSnapshot()) {
+                content = revision.getContent();
+                previousBytes = null;
+            } else if (previous != null && previous.getBaseRevisionNumber() == revision.getBaseRevisionNumber()) {
+                if (previousBytes == null) {
+                    previousBytes = bytes(contents.get(contents.size() - 1));
+                }
+                previousBytes = DeltaCodec.decode(previousBytes, revision.getDelta());
+                content = new String(previousBytes, StandardCharsets.UTF_8);
+            } else {
+                content = readContent(revision);
+                previousBytes = null;
+            }
+            contents.add(content);
+            previous = revision;
+        }
+        return contents;
+    }
+
+    private static byte[] bytes(String content) {
+        return content == null ? new byte[0] : content.getBytes(StandardCharsets.UTF_8);
+    }
+}
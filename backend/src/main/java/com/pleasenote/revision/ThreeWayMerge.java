@@ -0,0 +1,160 @@
+package com.pleasenote.revision;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Three-way merge of two edits ("ours", "theirs") of a common base.
+ *
+ * Both sides are diffed against the base line by line and their changed
+ * regions are walked together: a region changed on one side takes that side,
+ * one changed identically on both takes either, and one changed differently on
+ * both is merged again character by character. Regions that still overlap are
+ * reported as conflicts. As in diff3, edits touching the same or adjacent base
+ * lines overlap.
+ */
+public final class ThreeWayMerge {
+
+    /**
+     * Diff cost beyond which a region is treated as wholly replaced.
+     */
+    static final int MAX_DIFF_COST = 4096;
+
+    /**
+     * Conflicting regions up to this many characters per side are retried per character.
+     */
+    static final int MAX_CHARACTER_MERGE = 16 * 1024;
+
+    /**
+     * A region both sides changed differently; {@code baseLine} is the 1-based
+     * base line it starts at.
+     */
+    public record Conflict(int baseLine, String base, String ours, String theirs) {
+    }
+
+    /**
+     * {@code merged} is null unless the merge is clean.
+     */
+    public record Result(String merged, List<Conflict> conflicts) {
+        public boolean isClean() {
+            return conflicts.isEmpty();
+        }
+    }
+
+    private ThreeWayMerge() {
+    }
+
+    public static Result merge(String base, String ours, String theirs) {
+        base = base == null ? "" : base;
+        ours = ours == null ? "" : ours;
+        theirs = theirs == null ? "" : theirs;
+        if (ours.equals(theirs) || theirs.equals(base)) {
+            return new Result(ours, List.of());
+        }
+        if (ours.equals(base)) {
+            return new Result(theirs, List.of());
+        }
+
+        Map<String, Integer> ids = new HashMap<>();
+        Tokens o = Tokens.lines(base, ids);
+        Tokens a = Tokens.lines(ours, ids);
+        Tokens b = Tokens.lines(theirs, ids);
+
+        StringBuilder merged = new StringBuilder(Math.max(ours.length(), theirs.length()));
+        List<Conflict> conflicts = new ArrayList<>();
+        merge(o, a, b, (oStart, oEnd, aText, bText) -> {
+            String baseText = o.text(oStart, oEnd);
+            if (baseText.length() <= MAX_CHARACTER_MERGE && aText.length() <= MAX_CHARACTER_MERGE
+                && bText.length() <= MAX_CHARACTER_MERGE) {
+                StringBuilder characters = new StringBuilder();
+                boolean[] clean = {true};
+                merge(Tokens.chars(baseText), Tokens.chars(aText), Tokens.chars(bText),
+                    (x, y, ours2, theirs2) -> {
+                        clean[0] = false;
+                        return "";
+                    }, characters);
+                if (clean[0]) {
+                    return characters;
+                }
+            }
+            conflicts.add(new Conflict(oStart + 1, baseText, aText, bText));
+            return "";
+        }, merged);
+
+        return conflicts.isEmpty() ? new Result(merged.toString(), List.of()) : new Result(null, conflicts);
+    }
+
+    /**
+     * Resolves a region both sides changed; returns the text to emit for it.
+     */
+    private interface ConflictHandler {
+        CharSequence resolve(int oStart, int oEnd, String ours, String theirs);
+    }
+
+    private static void merge(Tokens o, Tokens a, Tokens b, ConflictHandler onConflict, StringBuilder out) {
+        List<Diff.Edit> ours = Diff.diff(o.ids, a.ids, MAX_DIFF_COST);
+        List<Diff.Edit> theirs = Diff.diff(o.ids, b.ids, MAX_DIFF_COST);
+        int i = 0;
+        int j = 0;
+        int position = 0;
+
+        while (i < ours.size() || j < theirs.size()) {
+            // Start a region at the earliest remaining edit and grow it while either side overlaps it
+            int lo;
+            int hi;
+            if (j == theirs.size() || (i < ours.size() && ours.get(i).aStart() <= theirs.get(j).aStart())) {
+                lo = ours.get(i).aStart();
+                hi = ours.get(i).aEnd();
+            } else {
+                lo = theirs.get(j).aStart();
+                hi = theirs.get(j).aEnd();
+            }
+            int iEnd = i;
+            int jEnd = j;
+            boolean grown = true;
+            while (grown) {
+                grown = false;
+                if (iEnd < ours.size() && ours.get(iEnd).aStart() <= hi) {
+                    hi = Math.max(hi, ours.get(iEnd++).aEnd());
+                    grown = true;
+                }
+                if (jEnd < theirs.size() && theirs.get(jEnd).aStart() <= hi) {
+                    hi = Math.max(hi, theirs.get(jEnd++).aEnd());
+                    grown = true;
+                }
+            }
+
+            o.append(out, position, lo);
+            if (jEnd == j) {
+                a.append(out, project(ours, i, iEnd, lo, hi));
+            } else if (iEnd == i) {
+                b.append(out, project(theirs, j, jEnd, lo, hi));
+            } else {
+                int[] aRange = project(ours, i, iEnd, lo, hi);
+                int[] bRange = project(theirs, j, jEnd, lo, hi);
+                if (Arrays.equals(a.ids, aRange[0], aRange[1], b.ids, bRange[0], bRange[1])) {
+                    a.append(out, aRange);
+                } else {
+                    out.append(onConflict.resolve(lo, hi, a.text(aRange[0], aRange[1]), b.text(bRange[0], bRange[1])));
+                }
+            }
+            position = hi;
+            i = iEnd;
+            j = jEnd;
+        }
+        o.append(out, position, o.ids.length);
+    }
+
+    /**
+     * The range of one side that replaces base {@code [lo, hi)}, given that side's
+     * edits {@code [from, to)} inside it; outside its edits the side equals the base.
+     */
+    private static int[] project(List<Diff.Edit> edits, int from, int to, int lo, int hi) {
+        Diff.Edit first = edits.get(from);
+        Diff.Edit last = edits.get(to - 1);
+        return new int[] {first.bStart() - (first.aStart() - lo), last.bEnd() + (hi - last.aEnd())};
+    }
+}
@@ -0,0 +1,72 @@
+package com.pleasenote.revision;
+
+import java.util.Map;
+
+/**
+ * A text as token ids, with each token's end offset for slicing.
+ */
+final class Tokens {
+
+    final String text;
+    final int[] ids;
+    final int[] ends;
+
+    private Tokens(String text, int[] ids, int[] ends) {
+        this.text = text;
+        this.ids = ids;
+        this.ends = ends;
+    }
+
+    /**
+     * Lines including their terminator; equal lines share an id across texts.
+     */
+    static Tokens lines(String text, Map<String, Integer> ids) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        if (!text.isEmpty() && text.charAt(text.length() - 1) != '\n') {
+            count++;
+        }
+        int[] tokenIds = new int[count];
+        int[] tokenEnds = new int[count];
+        int start = 0;
+        for (int t = 0; t < count; t++) {
+            int newline = text.indexOf('\n', start);
+            int end = newline < 0 ? text.length() : newline + 1;
+            String line = text.substring(start, end);
+            tokenIds[t] = ids.computeIfAbsent(line, key -> ids.size());
+            tokenEnds[t] = end;
+            start = end;
+        }
+        return new Tokens(text, tokenIds, tokenEnds);
+    }
+
+    static Tokens chars(String text) {
+        int[] tokenIds = new int[text.length()];
+        int[] tokenEnds = new int[text.length()];
+        for (int i = 0; i < text.length(); i++) {
+            tokenIds[i] = text.charAt(i);
+            tokenEnds[i] = i + 1;
+        }
+        return new Tokens(text, tokenIds, tokenEnds);
+    }
+
+    int offset(int token) {
+        return token == 0 ? 0 : ends[token - 1];
+    }
+
+    String text(int from, int to) {
+        return text.substring(offset(from), offset(to));
+    }
+
+    void append(StringBuilder out, int from, int to) {
+        out.append(text, offset(from), offset(to));
+    }
+
+    void append(StringBuilder out, int[] range) {
+        append(out, range[0], range[1]);
+    }
+}
@@ -0,0 +1,14 @@
+package com.pleasenote.security;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+/**
+ * The security principal for a request, built from the JWT claims alone.
+ */
+public record AuthenticatedUser(Long id, String username) implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
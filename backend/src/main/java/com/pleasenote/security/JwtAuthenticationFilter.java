@@ -1,5 +1,6 @@
 package com.pleasenote.security;
 
+import com.pleasenote.metrics.StageTimers;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -17,9 +18,15 @@ import java.util.Collections;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
+    private final UserCache userCache;
+    private final StageTimers.Stage parseTimer;
+    private final StageTimers.Stage userTimer;
 
-    public JwtAuthenticationFilter(JwtService jwtService) {
+    public JwtAuthenticationFilter(JwtService jwtService, UserCache userCache, StageTimers stageTimers) {
         this.jwtService = jwtService;
+        this.userCache = userCache;
+        this.parseTimer = stageTimers.stage("auth.jwt", "parse");
+        this.userTimer = stageTimers.stage("auth.jwt", "user");
     }
 
     @Override
@@ -31,11 +38,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
             try {
+                long start = System.nanoTime();
                 Claims claims = jwtService.parseToken(token);
-                String username = claims.getSubject();
-                UsernamePasswordAuthenticationToken authentication =
-                    new UsernamePasswordAuthenticationToken(username, null, Collections.emptyList());
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                Long userId = ((Number) claims.get("userId")).longValue();
+                start = parseTimer.record(start);
+                boolean exists = userCache.get(userId).isPresent();
+                userTimer.record(start);
+                if (exists) {
+                    AuthenticatedUser principal = new AuthenticatedUser(userId, claims.getSubject());
+                    UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(principal, null, Collections.emptyList());
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             } catch (Exception e) {
                 // Token is invalid or expired — just don't authenticate
             }
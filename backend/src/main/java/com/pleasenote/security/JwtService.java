@@ -1,5 +1,8 @@
 package com.pleasenote.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -7,20 +10,36 @@ import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
+import java.util.HexFormat;
 
 @Service
 public class JwtService {
 
     private final SecretKey secretKey;
     private final long expirationMs;
+    private final JwtParser parser;
+
+    // Verified claims by SHA-256 of the token, each kept until the token expires; null when disabled
+    private final Cache<String, Claims> verified;
 
     public JwtService(
         @Value("${jwt.secret}") String secret,
-        @Value("${jwt.expiration-ms}") long expirationMs
+        @Value("${jwt.expiration-ms}") long expirationMs,
+        @Value("${jwt.cache.max-size:10000}") long cacheMaxSize
     ) {
         this.secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
         this.expirationMs = expirationMs;
+        this.parser = Jwts.parser()
+            .verifyWith(secretKey)
+            .build();
+        this.verified = cacheMaxSize <= 0 ? null : Caffeine.newBuilder()
+            .maximumSize(cacheMaxSize)
+            .expireAfter(Expiry.<String, Claims>creating((key, claims) -> timeToExpiry(claims)))
+            .build();
     }
 
     public String generateToken(Long userId, String username) {
@@ -34,10 +53,32 @@ public class JwtService {
     }
 
     public Claims parseToken(String token) {
-        return Jwts.parser()
-            .verifyWith(secretKey)
-            .build()
+        if (verified == null) {
+            return verify(token);
+        }
+        return verified.get(sha256(token), key -> verify(token));
+    }
+
+    private Claims verify(String token) {
+        return parser
             .parseSignedClaims(token)
             .getPayload();
     }
+
+    private Duration timeToExpiry(Claims claims) {
+        Date expiration = claims.getExpiration();
+        if (expiration == null) {
+            return Duration.ofMillis(expirationMs);
+        }
+        return Duration.ofMillis(Math.max(0, expiration.getTime() - System.currentTimeMillis()));
+    }
+
+    private static String sha256(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 }
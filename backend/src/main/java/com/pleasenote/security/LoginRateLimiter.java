@@ -0,0 +1,97 @@
+package com.pleasenote.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Token buckets per username and per client address for the /auth endpoints,
+ * checked before any password is hashed. Each bucket holds up to its burst size
+ * and refills continuously; idle buckets are evicted after ten minutes.
+ * Rejections are counted as {@code auth.rate.limited} tagged by bucket kind.
+ */
+@Component
+public class LoginRateLimiter {
+
+    private final Cache<String, TokenBucket> buckets;
+    private final int usernameBurst;
+    private final double usernamePerMinute;
+    private final int addressBurst;
+    private final double addressPerMinute;
+    private final Counter usernameLimited;
+    private final Counter addressLimited;
+
+    public LoginRateLimiter(
+        MeterRegistry meterRegistry,
+        @Value("${security.login.username-burst:10}") int usernameBurst,
+        @Value("${security.login.username-per-minute:10}") double usernamePerMinute,
+        @Value("${security.login.address-burst:50}") int addressBurst,
+        @Value("${security.login.address-per-minute:60}") double addressPerMinute
+    ) {
+        this.buckets = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+        this.usernameBurst = usernameBurst;
+        this.usernamePerMinute = usernamePerMinute;
+        this.addressBurst = addressBurst;
+        this.addressPerMinute = addressPerMinute;
+        this.usernameLimited = Counter.builder("auth.rate.limited").tag("bucket", "username").register(meterRegistry);
+        this.addressLimited = Counter.builder("auth.rate.limited").tag("bucket", "address").register(meterRegistry);
+    }
+
+    /**
+     * Takes a token for {@code address} and, when given, {@code username}.
+     * Returns zero if the attempt may proceed, otherwise how long to wait.
+     */
+    public Duration acquire(String username, String address) {
+        long now = System.nanoTime();
+        long wait = buckets.get("ip:" + address, k -> new TokenBucket(addressBurst, addressPerMinute)).take(now);
+        if (wait > 0) {
+            addressLimited.increment();
+            return Duration.ofNanos(wait);
+        }
+        if (username != null) {
+            wait = buckets.get("user:" + username, k -> new TokenBucket(usernameBurst, usernamePerMinute)).take(now);
+            if (wait > 0) {
+                usernameLimited.increment();
+                return Duration.ofNanos(wait);
+            }
+        }
+        return Duration.ZERO;
+    }
+
+    private static final class TokenBucket {
+        private final int capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilledAt;
+
+        TokenBucket(int capacity, double perMinute) {
+            this.capacity = capacity;
+            this.tokensPerNano = perMinute / Duration.ofMinutes(1).toNanos();
+            this.tokens = capacity;
+            this.refilledAt = System.nanoTime();
+        }
+
+        /**
+         * Takes one token, returning 0, or the nanoseconds until one is available.
+         */
+        synchronized long take(long now) {
+            if (now > refilledAt) {
+                tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+                refilledAt = now;
+            }
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+    }
+}
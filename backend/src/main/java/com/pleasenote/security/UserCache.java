@@ -0,0 +1,43 @@
+package com.pleasenote.security;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.pleasenote.model.User;
+import com.pleasenote.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Bounded, time-evicting cache of users by id, including misses, so a deleted
+ * user's tokens stop working within {@code users.cache.ttl} without a user-table
+ * query per request. Hit/miss counts are published as the {@code cache.*}
+ * meters tagged {@code cache=users}.
+ */
+@Component
+public class UserCache {
+
+    private final LoadingCache<Long, Optional<User>> users;
+
+    public UserCache(
+        UserRepository userRepository,
+        MeterRegistry meterRegistry,
+        @Value("${users.cache.max-size:10000}") long maxSize,
+        @Value("${users.cache.ttl:5m}") Duration ttl
+    ) {
+        this.users = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build(userRepository::findById);
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "users");
+    }
+
+    public Optional<User> get(Long id) {
+        return users.get(id);
+    }
+}
@@ -0,0 +1,32 @@
+package com.pleasenote.service;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-process {@link NoteHeadChannel}: all a single instance needs, and a stand-in
+ * that lets several caches in one JVM behave like the caches of separate nodes.
+ */
+public class LocalNoteHeadChannel implements NoteHeadChannel {
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(long noteId, int revisionNumber) {
+        for (Listener listener : listeners) {
+            listener.moved(noteId, revisionNumber);
+        }
+    }
+
+    @Override
+    public void publishRewritten(long noteId) {
+        for (Listener listener : listeners) {
+            listener.rewritten(noteId);
+        }
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,49 @@
+package com.pleasenote.service;
+
+import com.pleasenote.service.NoteCommitService.CommitResult;
+import com.pleasenote.service.NoteCommitService.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Outcomes and sizes of note commits, single and batched alike:
+ * {@code notes.commits} by {@code result} (e.g. {@code conflict} for a 409),
+ * {@code notes.revisions}, the revision number each commit reaches, and
+ * {@code notes.content.length}, the committed content in characters.
+ */
+@Component
+public class NoteCommitMetrics {
+
+    private final Map<Status, Counter> results = new EnumMap<>(Status.class);
+    private final DistributionSummary revisions;
+    private final DistributionSummary contentLength;
+
+    public NoteCommitMetrics(MeterRegistry meterRegistry) {
+        for (Status status : Status.values()) {
+            results.put(status, Counter.builder("notes.commits")
+                .tag("result", status.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry));
+        }
+        this.revisions = DistributionSummary.builder("notes.revisions")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.contentLength = DistributionSummary.builder("notes.content.length")
+            .baseUnit("characters")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    public void record(CommitResult result, String content) {
+        results.get(result.status()).increment();
+        if (result.status() == Status.COMMITTED) {
+            revisions.record(result.revisionNumber());
+            contentLength.record(content == null ? 0 : content.length());
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package com.pleasenote.service;
+
+import com.pleasenote.events.NoteEventOutbox;
+import com.pleasenote.metrics.StageTimers;
+import com.pleasenote.model.NoteRevision;
+import com.pleasenote.repository.NoteRevisionRepository;
+import com.pleasenote.revision.RevisionBlobs;
+import com.pleasenote.revision.RevisionStore;
+import com.pleasenote.revision.ThreeWayMerge;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Creates notes and commits revisions with a single statement each.
+ *
+ * {@code notes.head_revision_id} is the optimistic-concurrency token: a commit
+ * is a compare-and-swap on it that bumps the head and inserts the new revision
+ * in one data-modifying CTE, so concurrent commits against the same base cannot
+ * both succeed and no check-then-act window exists. The revision body is encoded
+ * against the client's base revision before the statement runs; if the swap
+ * fails that work is simply discarded.
+ *
+ * The base revision is read in the same transaction as the swap, so the JPA reads
+ * and the statement share one pooled connection; otherwise a request already
+ * holding a connection through open-in-view would need a second one, and enough
+ * concurrent commits would exhaust the pool waiting on each other.
+ *
+ * The same statements rebuild {@code notes.search_vector} and
+ * {@code notes.content_preview} from the new title and body, so search and the
+ * note list never see a head they have not caught up with, and insert the
+ * {@code note_events} outbox row when events are enabled.
+ *
+ * Snapshot bodies go to the content-addressed {@code revision_blobs} in the same
+ * statement, so identical bodies are stored once. With
+ * {@code revisions.skip-unchanged} (default on) a commit whose body and title
+ * equal the head's writes nothing and returns the head as {@code UNCHANGED}.
+ *
+ * A stale commit may instead ask to be merged: the client's body is merged with
+ * the current head against the client's base revision outside any transaction,
+ * and the result is committed on top of that head, re-merging if the head moves
+ * again in the meantime.
+ *
+ * The {@link NoteHeadCache} supplies the base when it is the cached head with its
+ * content, so a client updating the note it last committed skips reloading and
+ * rebuilding the head's delta chain; the swap still decides whether that head is
+ * current. Heads are handed to the cache only once their transaction commits.
+ */
+@Service
+public class NoteCommitService {
+
+    public static final int PREVIEW_LENGTH = 200;
+
+    /**
+     * Commits tried per merging update before the conflict is returned as is.
+     */
+    static final int MAX_MERGE_ATTEMPTS = 3;
+
+    public enum Status { COMMITTED, UNCHANGED, CONFLICT, NOT_FOUND, FORBIDDEN }
+
+    /**
+     * For {@code CONFLICT}, the revision fields describe the current head. A merging
+     * commit also carries the committed body ({@code mergedContent}) or, when the
+     * merge failed, the regions that could not be merged.
+     */
+    public record CommitResult(Status status, Long noteId, Long revisionId, Integer revisionNumber,
+                               String mergedContent, List<ThreeWayMerge.Conflict> conflicts) {
+
+        public CommitResult(Status status, Long noteId, Long revisionId, Integer revisionNumber) {
+            this(status, noteId, revisionId, revisionNumber, null, List.of());
+        }
+    }
+
+    private static final String CREATE_SQL = """
+        WITH note AS (
+            INSERT INTO notes (user_id, title, created_at, updated_at, head_revision_id, head_revision_number,
+                               content_preview, search_vector)
+            VALUES (?, ?, ?, ?, nextval(pg_get_serial_sequence('note_revisions', 'id')), 1, ?,
+                    setweight(to_tsvector(CAST(? AS regconfig), COALESCE(?, '')), 'A')
+                        || setweight(to_tsvector(CAST(? AS regconfig), ?), 'B'))
+            RETURNING id, head_revision_id
+        ),
+        blob AS (
+            INSERT INTO revision_blobs (hash, body)
+            SELECT v.hash, v.body FROM note, (VALUES (CAST(? AS BYTEA), CAST(? AS BYTEA))) AS v (hash, body)
+            WHERE v.hash IS NOT NULL
+            ON CONFLICT (hash) DO UPDATE SET hash = EXCLUDED.hash WHERE false
+        ),
+        revision AS (
+            INSERT INTO note_revisions (id, note_id, blob_hash, delta, base_revision_number, revision_number, created_at)
+            SELECT head_revision_id, id, ?, ?, ?, 1, ? FROM note
+            RETURNING note_id, id, revision_number, created_at
+        ),
+        event AS (
+            INSERT INTO note_events (type, note_id, user_id, revision_id, revision_number, created_at)
+            SELECT 'CREATED', note_id, ?, id, revision_number, created_at FROM revision WHERE ?
+        )
+        SELECT note_id, id, revision_number FROM revision
+        """;
+
+    private static final String COMMIT_SQL = """
+        WITH head AS (
+            UPDATE notes
+            SET head_revision_id = nextval(pg_get_serial_sequence('note_revisions', 'id')),
+                head_revision_number = head_revision_number + 1,
+                title = COALESCE(?, title),
+                updated_at = ?,
+                content_preview = ?,
+                search_vector = setweight(to_tsvector(CAST(? AS regconfig), COALESCE(?, title, '')), 'A')
+                    || setweight(to_tsvector(CAST(? AS regconfig), ?), 'B')
+            WHERE id = ? AND user_id = ? AND head_revision_id = ?
+            RETURNING id, title, head_revision_id, head_revision_number, history_version
+        ),
+        blob AS (
+            INSERT INTO revision_blobs (hash, body)
+            SELECT v.hash, v.body FROM head, (VALUES (CAST(? AS BYTEA), CAST(? AS BYTEA))) AS v (hash, body)
+            WHERE v.hash IS NOT NULL
+            ON CONFLICT (hash) DO UPDATE SET hash = EXCLUDED.hash WHERE false
+        ),
+        revision AS (
+            INSERT INTO note_revisions (id, note_id, blob_hash, delta, base_revision_number, revision_number, created_at)
+            SELECT head_revision_id, id, ?, ?, ?, head_revision_number, ? FROM head
+            RETURNING note_id, id, revision_number, created_at
+        ),
+        event AS (
+            INSERT INTO note_events (type, note_id, user_id, revision_id, revision_number, created_at)
+            SELECT 'UPDATED', note_id, ?, id, revision_number, created_at FROM revision WHERE ?
+        )
+        SELECT revision.note_id, revision.id, revision.revision_number, head.title, head.history_version
+        FROM revision, head
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final NoteRevisionRepository revisionRepository;
+    private final RevisionStore revisionStore;
+    private final RevisionBlobs revisionBlobs;
+    private final NoteSearchService searchService;
+    private final NoteEventOutbox outbox;
+    private final NoteHeadCache headCache;
+    private final NoteCommitMetrics metrics;
+    private final StageTimers.Stage loadTimer;
+    private final StageTimers.Stage encodeTimer;
+    private final StageTimers.Stage writeTimer;
+    private final StageTimers.Stage mergeTimer;
+    private final boolean skipUnchanged;
+
+    public NoteCommitService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                             NoteRevisionRepository revisionRepository, RevisionStore revisionStore,
+                             RevisionBlobs revisionBlobs, NoteSearchService searchService, NoteEventOutbox outbox,
+                             NoteHeadCache headCache, NoteCommitMetrics metrics, StageTimers stageTimers,
+                             @Value("${revisions.skip-unchanged:true}") boolean skipUnchanged) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.revisionRepository = revisionRepository;
+        this.revisionStore = revisionStore;
+        this.revisionBlobs = revisionBlobs;
+        this.searchService = searchService;
+        this.outbox = outbox;
+        this.headCache = headCache;
+        this.metrics = metrics;
+        this.loadTimer = stageTimers.stage("notes.commit", "load");
+        this.encodeTimer = stageTimers.stage("notes.commit", "encode");
+        this.writeTimer = stageTimers.stage("notes.commit", "write");
+        this.mergeTimer = stageTimers.stage("notes.commit", "merge");
+        this.skipUnchanged = skipUnchanged;
+    }
+
+    public CommitResult create(long userId, String title, String content) {
+        long start = System.nanoTime();
+        NoteRevision revision = revisionStore.prepare(null, null, content);
+        RevisionBlobs.Blob blob = revision.getBlobHash() == null ? null : RevisionBlobs.Blob.of(revision);
+        byte[] inlineBody = blob == null ? null : revisionBlobs.inlineBody(blob);
+        start = encodeTimer.record(start);
+        OffsetDateTime now = revision.getCreatedAt();
+        String language = searchService.language();
+        Supplier<CommitResult> insert = () -> jdbcTemplate.queryForObject(CREATE_SQL, (rs, i) -> new CommitResult(
+                Status.COMMITTED, rs.getLong("note_id"), rs.getLong("id"), rs.getInt("revision_number")),
+            userId, title, now, now, preview(content),
+            language, title, language, searchService.indexedText(content),
+            revision.getBlobHash(), inlineBody,
+            revision.getBlobHash(), revision.getDelta(), revision.getBaseRevisionNumber(), now,
+            userId, outbox.enabled());
+
+        CommitResult created;
+        if (blob != null && inlineBody == null) {
+            // The file is written while the statement's transaction holds the blob row
+            created = transactionTemplate.execute(status -> {
+                CommitResult result = insert.get();
+                revisionBlobs.putExternal(blob);
+                return result;
+            });
+        } else {
+            created = insert.get();
+        }
+        writeTimer.record(start);
+        outbox.committed(userId, created.noteId(), created.revisionId(), created.revisionNumber());
+        headCache.committed(new NoteHeadCache.Head(created.noteId(), userId, title, created.revisionId(),
+            created.revisionNumber(), 0, revision.getBaseRevisionNumber(), content));
+        metrics.record(created, content);
+        return created;
+    }
+
+    /**
+     * Commits {@code content} on top of {@code lastRevisionId} if that is still the
+     * note's head. A null {@code title} keeps the current one.
+     */
+    public CommitResult commit(long noteId, long userId, long lastRevisionId, String title, String content) {
+        return commit(noteId, userId, lastRevisionId, title, content, false);
+    }
+
+    /**
+     * Like {@link #commit(long, long, long, String, String)}, but with {@code merge}
+     * a stale {@code content} is three-way merged into the current head and the
+     * merged body committed instead of failing.
+     */
+    public CommitResult commit(long noteId, long userId, long lastRevisionId, String title, String content,
+                               boolean merge) {
+        CommitResult result = merge && content != null
+            ? commitMerging(noteId, userId, lastRevisionId, title, content)
+            : commit(noteId, userId, lastRevisionId, null, title, content);
+        metrics.record(result, result.mergedContent() != null ? result.mergedContent() : content);
+        return result;
+    }
+
+    private CommitResult commitMerging(long noteId, long userId, long lastRevisionId, String title, String content) {
+        CommitResult result = commit(noteId, userId, lastRevisionId, null, title, content);
+        for (int attempt = 0; attempt < MAX_MERGE_ATTEMPTS && result.status() == Status.CONFLICT; attempt++) {
+            long start = System.nanoTime();
+            long headId = result.revisionId();
+            Map<Long, RevisionStore.Loaded> loaded = transactionTemplate.execute(
+                status -> revisionStore.load(List.of(noteId), List.of(lastRevisionId, headId)));
+            RevisionStore.Loaded base = loaded.get(lastRevisionId);
+            RevisionStore.Loaded head = loaded.get(headId);
+            if (base == null || head == null || !base.revision().getNote().getId().equals(noteId)) {
+                return result;
+            }
+
+            ThreeWayMerge.Result merged = ThreeWayMerge.merge(base.content(), content, head.content());
+            mergeTimer.record(start);
+            if (!merged.isClean()) {
+                return new CommitResult(Status.CONFLICT, noteId, result.revisionId(), result.revisionNumber(),
+                    null, merged.conflicts());
+            }
+            result = commit(noteId, userId, headId, head, title, merged.merged());
+            if (result.status() == Status.COMMITTED || result.status() == Status.UNCHANGED) {
+                return new CommitResult(result.status(), noteId, result.revisionId(), result.revisionNumber(),
+                    merged.merged(), List.of());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * One compare-and-swap attempt; {@code loaded} is the base revision if already
+     * read, or null to take it from the head cache or read it here.
+     */
+    private CommitResult commit(long noteId, long userId, long lastRevisionId, RevisionStore.Loaded loaded,
+                                String title, String content) {
+        Attempt attempt;
+        try {
+            attempt = transactionTemplate.execute(status -> {
+                long start = System.nanoTime();
+                NoteHeadCache.Head cached = loaded == null ? headCache.withContent(noteId, lastRevisionId) : null;
+                NoteRevision previous;
+                String previousContent;
+                if (loaded != null) {
+                    previous = loaded.revision();
+                    if (!previous.getNote().getId().equals(noteId)) {
+                        return new Attempt(resolveFailure(noteId, userId), null);
+                    }
+                    previousContent = loaded.content();
+                } else if (cached != null) {
+                    // Only the numbers of the base take part in encoding against it
+                    previous = new NoteRevision();
+                    previous.setRevisionNumber(cached.revisionNumber());
+                    previous.setBaseRevisionNumber(cached.baseRevisionNumber());
+                    previousContent = cached.content();
+                } else {
+                    previous = revisionRepository.findByNoteIdAndId(noteId, lastRevisionId).orElse(null);
+                    if (previous == null) {
+                        return new Attempt(resolveFailure(noteId, userId), null);
+                    }
+                    previousContent = revisionStore.readContent(previous);
+                    headCache.putContent(noteId, lastRevisionId, previous.getBaseRevisionNumber(), previousContent);
+                }
+                start = loadTimer.record(start);
+                if (skipUnchanged && Objects.equals(content, previousContent)) {
+                    CommitResult unchanged = unchanged(noteId, userId, lastRevisionId, title);
+                    if (unchanged != null) {
+                        return new Attempt(unchanged, null);
+                    }
+                }
+
+                NoteRevision revision = revisionStore.prepare(previous.getNote(), previous, previousContent, content);
+                RevisionBlobs.Blob blob = revision.getBlobHash() == null ? null : RevisionBlobs.Blob.of(revision);
+                byte[] inlineBody = blob == null ? null : revisionBlobs.inlineBody(blob);
+                start = encodeTimer.record(start);
+                String language = searchService.language();
+                List<NoteHeadCache.Head> committed = jdbcTemplate.query(COMMIT_SQL, (rs, i) -> new NoteHeadCache.Head(
+                        rs.getLong("note_id"), userId, rs.getString("title"), rs.getLong("id"),
+                        rs.getInt("revision_number"), rs.getInt("history_version"), revision.getBaseRevisionNumber(),
+                        content),
+                    title, revision.getCreatedAt(), preview(content),
+                    language, title, language, searchService.indexedText(content),
+                    noteId, userId, lastRevisionId,
+                    revision.getBlobHash(), inlineBody,
+                    revision.getBlobHash(), revision.getDelta(), revision.getBaseRevisionNumber(), revision.getCreatedAt(),
+                    userId, outbox.enabled());
+                if (committed.isEmpty()) {
+                    writeTimer.record(start);
+                    return new Attempt(resolveFailure(noteId, userId), null);
+                }
+                if (blob != null) {
+                    revisionBlobs.putExternal(blob);
+                }
+                writeTimer.record(start);
+                NoteHeadCache.Head head = committed.get(0);
+                outbox.committed(userId, noteId, head.revisionId(), head.revisionNumber());
+                return new Attempt(
+                    new CommitResult(Status.COMMITTED, noteId, head.revisionId(), head.revisionNumber()), head);
+            });
+        } catch (DuplicateKeyException e) {
+            // uq_revision_per_note: the head pointer was behind the revisions table; the
+            // transaction is aborted, so report the real head from a fresh one
+            attempt = new Attempt(transactionTemplate.execute(status -> resolveFailure(noteId, userId)), null);
+        }
+
+        CommitResult result = attempt.result();
+        if (attempt.head() != null) {
+            headCache.committed(attempt.head());
+        } else if (result.status() == Status.CONFLICT && result.revisionNumber() != null) {
+            headCache.moved(noteId, result.revisionNumber());
+        } else if (result.status() == Status.NOT_FOUND) {
+            headCache.evict(noteId);
+        }
+        return result;
+    }
+
+    /**
+     * The outcome of one attempt and, if it committed, the new head.
+     */
+    private record Attempt(CommitResult result, NoteHeadCache.Head head) {
+    }
+
+    /**
+     * The leading characters of {@code content} kept on the note for listings.
+     */
+    public static String preview(String content) {
+        if (content == null) {
+            return "";
+        }
+        if (content.length() <= PREVIEW_LENGTH) {
+            return content;
+        }
+        int end = Character.isHighSurrogate(content.charAt(PREVIEW_LENGTH - 1)) ? PREVIEW_LENGTH - 1 : PREVIEW_LENGTH;
+        return content.substring(0, end);
+    }
+
+    /**
+     * The result of a commit that would change nothing: {@code lastRevisionId} is
+     * still the head and {@code title} is null or the current one. Null otherwise,
+     * including when the note is missing or not the user's, so the commit explains it.
+     */
+    private CommitResult unchanged(long noteId, long userId, long lastRevisionId, String title) {
+        List<CommitResult> rows = jdbcTemplate.query(
+            "SELECT head_revision_number FROM notes WHERE id = ? AND user_id = ? AND head_revision_id = ? "
+                + "AND (CAST(? AS TEXT) IS NULL OR title = ?)",
+            (rs, i) -> new CommitResult(Status.UNCHANGED, noteId, lastRevisionId, rs.getInt("head_revision_number")),
+            noteId, userId, lastRevisionId, title, title);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * Explains a failed swap: the note is gone, belongs to someone else, or has moved on.
+     */
+    private CommitResult resolveFailure(long noteId, long userId) {
+        List<CommitResult> rows = jdbcTemplate.query(
+            "SELECT user_id, head_revision_id, head_revision_number FROM notes WHERE id = ?",
+            (rs, i) -> rs.getLong("user_id") != userId
+                ? new CommitResult(Status.FORBIDDEN, noteId, null, null)
+                : new CommitResult(Status.CONFLICT, noteId,
+                    rs.getObject("head_revision_id", Long.class), rs.getObject("head_revision_number", Integer.class)),
+            noteId);
+        return rows.isEmpty() ? new CommitResult(Status.NOT_FOUND, noteId, null, null) : rows.get(0);
+    }
+}
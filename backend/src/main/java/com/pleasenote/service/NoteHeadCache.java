@@ -0,0 +1,198 @@
+package com.pleasenote.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import com.pleasenote.events.RevisionsCompacted;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Read-through cache of note heads: owner, title, head revision, history
+ * version and, once a commit or a rebuild has produced it, the head's content,
+ * so an update against the head skips reloading and rebuilding its delta chain.
+ *
+ * Every commit through this instance replaces the entry with the head it wrote,
+ * and only a newer revision ever replaces an entry, so racing commits cannot
+ * leave an older head behind. A stale entry is harmless to writers, since the
+ * compare-and-swap on {@code head_revision_id} still decides every commit, and a
+ * revision's content never changes. Moves, and compactions that bump the
+ * history version, are announced on the {@link NoteHeadChannel}; without one
+ * linking the instances, a head moved elsewhere is noticed at the latest after
+ * {@code notes.head-cache.ttl}.
+ *
+ * Bounded by {@code notes.head-cache.max-chars} of titles and content (0
+ * disables caching) and published as the {@code cache.*} meters tagged
+ * {@code cache=note-heads}.
+ */
+@Component
+public class NoteHeadCache implements NoteHeadChannel.Listener {
+
+    /**
+     * {@code historyVersion} counts the compactions that deleted revisions of the note.
+     * {@code baseRevisionNumber} and {@code content} are only known together:
+     * 0 and null for a head loaded from {@code notes}. Once known, {@code content}
+     * is null for a revision saved without content.
+     */
+    public record Head(
+        long noteId,
+        long userId,
+        String title,
+        long revisionId,
+        int revisionNumber,
+        int historyVersion,
+        int baseRevisionNumber,
+        String content
+    ) {
+        public boolean contentKnown() {
+            return baseRevisionNumber > 0;
+        }
+    }
+
+    private static final String HEAD_SQL = """
+        SELECT user_id, title, head_revision_id, head_revision_number, history_version
+        FROM notes
+        WHERE id = ?
+        """;
+
+    /** Rough per-entry overhead, in characters, so empty notes still count against the bound. */
+    private static final int ENTRY_WEIGHT = 64;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NoteHeadChannel channel;
+    private final Cache<Long, Head> heads;
+
+    public NoteHeadCache(
+        JdbcTemplate jdbcTemplate,
+        NoteHeadChannel channel,
+        MeterRegistry meterRegistry,
+        @Value("${notes.head-cache.max-chars:33554432}") long maxChars,
+        @Value("${notes.head-cache.ttl:1m}") Duration ttl
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.channel = channel;
+        if (maxChars > 0) {
+            this.heads = Caffeine.newBuilder()
+                .maximumWeight(maxChars)
+                .weigher((Long noteId, Head head) -> weight(head))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, heads, "note-heads");
+        } else {
+            this.heads = null;
+        }
+        channel.subscribe(this);
+    }
+
+    /**
+     * The note's head, or null if the note does not exist.
+     */
+    public Head get(long noteId) {
+        return heads == null ? load(noteId) : heads.get(noteId, this::load);
+    }
+
+    /**
+     * The cached head if it is still {@code revisionId} and its content is known, else null.
+     */
+    public Head withContent(long noteId, long revisionId) {
+        Head head = heads == null ? null : heads.getIfPresent(noteId);
+        return head != null && head.revisionId() == revisionId && head.contentKnown() ? head : null;
+    }
+
+    /**
+     * Remembers the content of head {@code revisionId} after it was rebuilt, if it is still the cached head.
+     */
+    public void putContent(long noteId, long revisionId, int baseRevisionNumber, String content) {
+        if (heads == null) {
+            return;
+        }
+        heads.asMap().computeIfPresent(noteId, (id, head) -> head.revisionId() == revisionId && !head.contentKnown()
+            ? new Head(id, head.userId(), head.title(), revisionId, head.revisionNumber(),
+                head.historyVersion(), baseRevisionNumber, content)
+            : head);
+    }
+
+    /**
+     * Records a head this instance committed and announces it. Call once the commit is durable.
+     */
+    public void committed(Head head) {
+        if (heads != null) {
+            heads.asMap().merge(head.noteId(), head,
+                (cached, committed) -> committed.revisionNumber() > cached.revisionNumber() ? committed : cached);
+        }
+        channel.publish(head.noteId(), head.revisionNumber());
+    }
+
+    /**
+     * Records that this instance moved the note's head without knowing all of the new head, and announces it.
+     */
+    public void committed(long noteId, int revisionNumber) {
+        moved(noteId, revisionNumber);
+        channel.publish(noteId, revisionNumber);
+    }
+
+    /**
+     * Drops the cached head and announces that the note's history changed, once the compaction commits.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCompacted(RevisionsCompacted compacted) {
+        rewritten(compacted.noteId());
+        channel.publishRewritten(compacted.noteId());
+    }
+
+    /**
+     * Drops the cached head if it is older than {@code revisionNumber}.
+     */
+    @Override
+    public void moved(long noteId, int revisionNumber) {
+        if (heads != null) {
+            heads.asMap().computeIfPresent(noteId,
+                (id, head) -> head.revisionNumber() < revisionNumber ? null : head);
+        }
+    }
+
+    /**
+     * Drops the cached head, whose history version is now stale.
+     */
+    @Override
+    public void rewritten(long noteId) {
+        evict(noteId);
+    }
+
+    /**
+     * Drops the cached head, e.g. once the note is gone.
+     */
+    public void evict(long noteId) {
+        if (heads != null) {
+            heads.invalidate(noteId);
+        }
+    }
+
+    private Head load(long noteId) {
+        List<Head> rows = jdbcTemplate.query(HEAD_SQL, (rs, rowNum) -> new Head(
+            noteId,
+            rs.getLong("user_id"),
+            rs.getString("title"),
+            rs.getLong("head_revision_id"),
+            rs.getInt("head_revision_number"),
+            rs.getInt("history_version"),
+            0,
+            null
+        ), noteId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private static int weight(Head head) {
+        long chars = ENTRY_WEIGHT
+            + (head.title() == null ? 0 : head.title().length())
+            + (head.content() == null ? 0 : head.content().length());
+        return (int) Math.min(chars, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,33 @@
+package com.pleasenote.service;
+
+/**
+ * Tells the {@link NoteHeadCache} of every backend instance that a note's head
+ * moved or its history was rewritten, so instances sharing one database stay
+ * coherent. The default {@link LocalNoteHeadChannel} only reaches this instance;
+ * define a bean backed by e.g. Redis pub/sub or Postgres {@code LISTEN/NOTIFY}
+ * to replace it.
+ */
+public interface NoteHeadChannel {
+
+    interface Listener {
+
+        void moved(long noteId, int revisionNumber);
+
+        void rewritten(long noteId);
+    }
+
+    /**
+     * Announces that {@code noteId}'s head is now {@code revisionNumber}, once the commit is durable.
+     */
+    void publish(long noteId, int revisionNumber);
+
+    /**
+     * Announces that {@code noteId}'s history changed without its head moving, once that is durable.
+     */
+    void publishRewritten(long noteId);
+
+    /**
+     * Registers a listener for announcements, this instance's own included.
+     */
+    void subscribe(Listener listener);
+}
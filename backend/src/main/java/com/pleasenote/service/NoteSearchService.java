@@ -0,0 +1,58 @@
+package com.pleasenote.service;
+
+import com.pleasenote.repository.NoteRepository;
+import com.pleasenote.repository.NoteSearchHit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Ranked full-text search over note titles and head revision content.
+ *
+ * {@code notes.search_vector} is rebuilt by {@link NoteCommitService} in the same
+ * statement that moves a note's head, so the index is always current without
+ * reindex jobs. Only the first {@code search.max-indexed-chars} characters of a
+ * body are indexed, keeping very large notes under Postgres' tsvector size limit.
+ */
+@Service
+public class NoteSearchService {
+
+    public static final String DEFAULT_LANGUAGE = "english";
+    public static final int DEFAULT_MAX_INDEXED_CHARS = 256 * 1024;
+
+    private final NoteRepository noteRepository;
+    private final String language;
+    private final int maxIndexedChars;
+
+    public NoteSearchService(
+        NoteRepository noteRepository,
+        @Value("${search.language:" + DEFAULT_LANGUAGE + "}") String language,
+        @Value("${search.max-indexed-chars:" + DEFAULT_MAX_INDEXED_CHARS + "}") int maxIndexedChars
+    ) {
+        this.noteRepository = noteRepository;
+        this.language = language;
+        this.maxIndexedChars = maxIndexedChars;
+    }
+
+    /**
+     * The Postgres text search configuration used for both indexing and queries.
+     */
+    public String language() {
+        return language;
+    }
+
+    /**
+     * The part of a revision body that goes into the search index.
+     */
+    public String indexedText(String content) {
+        if (content == null) {
+            return "";
+        }
+        return content.length() <= maxIndexedChars ? content : content.substring(0, maxIndexedChars);
+    }
+
+    public List<NoteSearchHit> search(long userId, String query, int limit, int offset) {
+        return noteRepository.search(userId, language, query, limit, offset);
+    }
+}
@@ -0,0 +1,374 @@
+package com.pleasenote.service;
+
+import com.pleasenote.events.NoteEvent;
+import com.pleasenote.events.NoteEventOutbox;
+import com.pleasenote.metrics.StageTimers;
+import com.pleasenote.model.NoteRevision;
+import com.pleasenote.revision.RevisionBlobs;
+import com.pleasenote.revision.RevisionStore;
+import com.pleasenote.revision.RevisionStore.Loaded;
+import com.pleasenote.service.NoteCommitService.CommitResult;
+import com.pleasenote.service.NoteCommitService.Status;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Applies a batch of offline edits in one transaction with JDBC batches.
+ *
+ * All base revisions are loaded, with their delta chains, in one query, and ids
+ * for new notes and revisions are drawn from the sequences up front, so every
+ * write is a plain batched statement instead of one round trip per item.
+ * Updates keep {@link NoteCommitService}'s compare-and-swap semantics: a head
+ * update only matches while {@code head_revision_id} still equals the item's
+ * {@code lastRevisionId}, and its revision row is inserted only when it did.
+ * Items are applied in order, so two updates of the same note from the same
+ * base leave the second one in conflict, exactly as sequential PUTs would.
+ * With {@code revisions.skip-unchanged} an update whose body and title equal
+ * its base, still the head at that point of the batch, writes nothing and
+ * returns the head as {@code UNCHANGED}. Once the batch commits, each updated note's cached head is dropped and the
+ * move announced through the {@link NoteHeadCache}.
+ */
+@Service
+public class NoteSyncService {
+
+    /**
+     * A create when {@code noteId} is null, otherwise an update on top of {@code lastRevisionId}.
+     */
+    public record SyncItem(Long noteId, Long lastRevisionId, String title, String content) {
+    }
+
+    private static final String INSERT_NOTE_SQL = """
+        INSERT INTO notes (id, user_id, title, created_at, updated_at, head_revision_id, head_revision_number,
+                           content_preview, search_vector)
+        VALUES (?, ?, ?, ?, ?, ?, 1, ?,
+                setweight(to_tsvector(CAST(? AS regconfig), ?), 'A')
+                    || setweight(to_tsvector(CAST(? AS regconfig), ?), 'B'))
+        """;
+
+    private static final String SWAP_HEAD_SQL = """
+        UPDATE notes
+        SET head_revision_id = ?,
+            head_revision_number = head_revision_number + 1,
+            title = COALESCE(?, title),
+            updated_at = ?,
+            content_preview = ?,
+            search_vector = setweight(to_tsvector(CAST(? AS regconfig), COALESCE(?, title, '')), 'A')
+                || setweight(to_tsvector(CAST(? AS regconfig), ?), 'B')
+        WHERE id = ? AND user_id = ? AND head_revision_id = ?
+        """;
+
+    private static final String INSERT_REVISION_SQL = """
+        INSERT INTO note_revisions (id, note_id, blob_hash, delta, base_revision_number, revision_number, created_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RevisionStore revisionStore;
+    private final RevisionBlobs revisionBlobs;
+    private final NoteSearchService searchService;
+    private final NoteEventOutbox outbox;
+    private final NoteHeadCache headCache;
+    private final NoteCommitMetrics metrics;
+    private final StageTimers.Stage prepareTimer;
+    private final StageTimers.Stage writeTimer;
+    private final boolean skipUnchanged;
+
+    public NoteSyncService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                           RevisionStore revisionStore, RevisionBlobs revisionBlobs, NoteSearchService searchService,
+                           NoteEventOutbox outbox, NoteHeadCache headCache, NoteCommitMetrics metrics,
+                           StageTimers stageTimers, @Value("${revisions.skip-unchanged:true}") boolean skipUnchanged) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.revisionStore = revisionStore;
+        this.revisionBlobs = revisionBlobs;
+        this.searchService = searchService;
+        this.outbox = outbox;
+        this.headCache = headCache;
+        this.metrics = metrics;
+        this.prepareTimer = stageTimers.stage("notes.sync", "prepare");
+        this.writeTimer = stageTimers.stage("notes.sync", "write");
+        this.skipUnchanged = skipUnchanged;
+    }
+
+    /**
+     * Returns one result per item, in item order.
+     */
+    public List<CommitResult> sync(long userId, List<SyncItem> items) {
+        // One transaction throughout, so every read and write shares a single connection
+        List<CommitResult> results = transactionTemplate.execute(status -> {
+            long start = System.nanoTime();
+            List<Write> writes = prepare(userId, items);
+            start = prepareTimer.record(start);
+            List<CommitResult> applied = apply(userId, writes);
+            writeTimer.record(start);
+            return applied;
+        });
+        for (int i = 0; i < results.size(); i++) {
+            CommitResult result = results.get(i);
+            if (items.get(i).noteId() != null && result.status() == Status.COMMITTED) {
+                headCache.committed(result.noteId(), result.revisionNumber());
+            } else if (result.status() == Status.CONFLICT && result.revisionNumber() != null) {
+                headCache.moved(result.noteId(), result.revisionNumber());
+            }
+            metrics.record(result, items.get(i).content());
+        }
+        return results;
+    }
+
+    private List<Write> prepare(long userId, List<SyncItem> items) {
+        Set<Long> updatedNoteIds = new HashSet<>();
+        Set<Long> baseIds = new HashSet<>();
+        for (SyncItem item : items) {
+            if (item.noteId() != null) {
+                updatedNoteIds.add(item.noteId());
+                baseIds.add(item.lastRevisionId());
+            }
+        }
+        Map<Long, Loaded> bases = revisionStore.load(updatedNoteIds, baseIds);
+        Map<Long, Head> heads = unchangedHeads(items, bases);
+
+        // Encode every body before taking any locks; updates whose base is not a
+        // revision of the target note are failures without touching the database
+        List<Write> writes = new ArrayList<>(items.size());
+        int creates = 0;
+        for (SyncItem item : items) {
+            if (item.noteId() == null) {
+                writes.add(new Write(item, revisionStore.prepare(null, null, item.content())));
+                creates++;
+                continue;
+            }
+            Loaded base = bases.get(item.lastRevisionId());
+            if (base == null || !base.revision().getNote().getId().equals(item.noteId())) {
+                writes.add(new Write(item, null));
+            } else if (heads.containsKey(item.noteId())) {
+                Head head = heads.get(item.noteId());
+                if (head == null || head.userId() != userId || head.revisionId() != item.lastRevisionId()) {
+                    // The swap would fail; resolve explains it
+                    writes.add(new Write(item, null));
+                } else if (item.title() == null || item.title().equals(head.title())) {
+                    Write write = new Write(item, null);
+                    write.unchanged = new CommitResult(Status.UNCHANGED, item.noteId(), head.revisionId(),
+                        head.revisionNumber());
+                    writes.add(write);
+                } else {
+                    writes.add(prepare(item, base));
+                }
+            } else {
+                writes.add(prepare(item, base));
+            }
+        }
+
+        long[] noteIds = nextIds("notes", creates);
+        long[] revisionIds = nextIds("note_revisions", (int) writes.stream().filter(w -> w.revision != null).count());
+        int nextNote = 0;
+        int nextRevision = 0;
+        for (Write write : writes) {
+            if (write.revision != null) {
+                write.noteId = write.item.noteId() == null ? noteIds[nextNote++] : write.item.noteId();
+                write.revisionId = revisionIds[nextRevision++];
+            }
+        }
+
+        return writes;
+    }
+
+    private Write prepare(SyncItem item, Loaded base) {
+        NoteRevision previous = base.revision();
+        return new Write(item, revisionStore.prepare(previous.getNote(), previous, base.content(), item.content()));
+    }
+
+    /**
+     * The current heads of the notes some update would leave unchanged, by note id;
+     * a key maps to null if the note is gone. Empty unless skipping unchanged updates.
+     */
+    private Map<Long, Head> unchangedHeads(List<SyncItem> items, Map<Long, Loaded> bases) {
+        Map<Long, Head> heads = new HashMap<>();
+        if (!skipUnchanged) {
+            return heads;
+        }
+        for (SyncItem item : items) {
+            Loaded base = item.noteId() == null ? null : bases.get(item.lastRevisionId());
+            if (base != null && base.revision().getNote().getId().equals(item.noteId())
+                && Objects.equals(item.content(), base.content())) {
+                heads.put(item.noteId(), null);
+            }
+        }
+        if (!heads.isEmpty()) {
+            jdbcTemplate.query(
+                "SELECT id, user_id, title, head_revision_id, head_revision_number FROM notes WHERE id = ANY(?)",
+                rs -> {
+                    heads.put(rs.getLong("id"), new Head(rs.getLong("user_id"), rs.getString("title"),
+                        rs.getLong("head_revision_id"), rs.getInt("head_revision_number")));
+                },
+                (Object) heads.keySet().toArray(Long[]::new));
+        }
+        return heads;
+    }
+
+    private List<CommitResult> apply(long userId, List<Write> writes) {
+        String language = searchService.language();
+        List<Write> creates = writes.stream().filter(w -> w.revision != null && w.item.noteId() == null).toList();
+        List<Write> updates = writes.stream().filter(w -> w.revision != null && w.item.noteId() != null).toList();
+
+        jdbcTemplate.batchUpdate(INSERT_NOTE_SQL, creates, creates.size(), (ps, write) -> {
+            OffsetDateTime now = write.revision.getCreatedAt();
+            ps.setLong(1, write.noteId);
+            ps.setLong(2, userId);
+            ps.setString(3, write.item.title());
+            ps.setObject(4, now);
+            ps.setObject(5, now);
+            ps.setLong(6, write.revisionId);
+            ps.setString(7, NoteCommitService.preview(write.item.content()));
+            ps.setString(8, language);
+            ps.setString(9, write.item.title());
+            ps.setString(10, language);
+            ps.setString(11, searchService.indexedText(write.item.content()));
+        });
+        for (Write write : creates) {
+            write.committed = true;
+        }
+
+        // One statement per update in a single batch: later items see earlier swaps
+        int[][] swapped = jdbcTemplate.batchUpdate(SWAP_HEAD_SQL, updates, updates.size(), (ps, write) -> {
+            ps.setLong(1, write.revisionId);
+            ps.setString(2, write.item.title());
+            ps.setObject(3, write.revision.getCreatedAt());
+            ps.setString(4, NoteCommitService.preview(write.item.content()));
+            ps.setString(5, language);
+            ps.setString(6, write.item.title());
+            ps.setString(7, language);
+            ps.setString(8, searchService.indexedText(write.item.content()));
+            ps.setLong(9, write.noteId);
+            ps.setLong(10, userId);
+            ps.setLong(11, write.item.lastRevisionId());
+        });
+        int[] counts = Arrays.stream(swapped).flatMapToInt(Arrays::stream).toArray();
+        for (int i = 0; i < updates.size(); i++) {
+            updates.get(i).committed = counts[i] > 0;
+        }
+
+        List<Write> inserted = writes.stream().filter(w -> w.committed).toList();
+        revisionBlobs.store(inserted.stream().map(w -> w.revision).toList());
+        jdbcTemplate.batchUpdate(INSERT_REVISION_SQL, inserted, inserted.size(), (ps, write) -> {
+            NoteRevision revision = write.revision;
+            ps.setLong(1, write.revisionId);
+            ps.setLong(2, write.noteId);
+            if (revision.getBlobHash() == null) {
+                ps.setNull(3, Types.BINARY);
+            } else {
+                ps.setBytes(3, revision.getBlobHash());
+            }
+            if (revision.getDelta() == null) {
+                ps.setNull(4, Types.BINARY);
+            } else {
+                ps.setBytes(4, revision.getDelta());
+            }
+            ps.setInt(5, revision.getBaseRevisionNumber());
+            ps.setInt(6, revision.getRevisionNumber());
+            ps.setObject(7, revision.getCreatedAt());
+        });
+        if (outbox.enabled() && !inserted.isEmpty()) {
+            jdbcTemplate.batchUpdate(NoteEventOutbox.INSERT_SQL, inserted, inserted.size(), (ps, write) -> {
+                ps.setString(1, (write.item.noteId() == null ? NoteEvent.Type.CREATED : NoteEvent.Type.UPDATED).name());
+                ps.setLong(2, write.noteId);
+                ps.setLong(3, userId);
+                ps.setLong(4, write.revisionId);
+                ps.setInt(5, write.revision.getRevisionNumber());
+                ps.setObject(6, write.revision.getCreatedAt());
+            });
+        }
+        for (Write write : inserted) {
+            outbox.committed(userId, write.noteId, write.revisionId, write.revision.getRevisionNumber());
+        }
+
+        return resolve(userId, writes);
+    }
+
+    /**
+     * Builds the results, explaining every failed update with one lookup of the notes involved.
+     */
+    private List<CommitResult> resolve(long userId, List<Write> writes) {
+        // An unchanged update only holds while no earlier item moved its note
+        Set<Long> moved = new HashSet<>();
+        Set<Long> failedNotes = new HashSet<>();
+        for (Write write : writes) {
+            if (write.unchanged != null && moved.contains(write.item.noteId())) {
+                write.unchanged = null;
+            }
+            if (write.committed) {
+                moved.add(write.noteId);
+            } else if (write.unchanged == null) {
+                failedNotes.add(write.item.noteId());
+            }
+        }
+        Map<Long, CommitResult> heads = new HashMap<>();
+        if (!failedNotes.isEmpty()) {
+            jdbcTemplate.query(
+                "SELECT id, user_id, head_revision_id, head_revision_number FROM notes WHERE id = ANY(?)",
+                rs -> {
+                    long noteId = rs.getLong("id");
+                    heads.put(noteId, rs.getLong("user_id") != userId
+                        ? new CommitResult(Status.FORBIDDEN, noteId, null, null)
+                        : new CommitResult(Status.CONFLICT, noteId,
+                            rs.getObject("head_revision_id", Long.class),
+                            rs.getObject("head_revision_number", Integer.class)));
+                },
+                (Object) failedNotes.toArray(Long[]::new));
+        }
+
+        List<CommitResult> results = new ArrayList<>(writes.size());
+        for (Write write : writes) {
+            if (write.committed) {
+                results.add(new CommitResult(Status.COMMITTED, write.noteId, write.revisionId,
+                    write.revision.getRevisionNumber()));
+            } else if (write.unchanged != null) {
+                results.add(write.unchanged);
+            } else {
+                Long noteId = write.item.noteId();
+                results.add(heads.getOrDefault(noteId, new CommitResult(Status.NOT_FOUND, noteId, null, null)));
+            }
+        }
+        return results;
+    }
+
+    private long[] nextIds(String table, int count) {
+        if (count == 0) {
+            return new long[0];
+        }
+        return jdbcTemplate.queryForList(
+                "SELECT nextval(pg_get_serial_sequence(?, 'id')) FROM generate_series(1, ?)",
+                Long.class, table, count)
+            .stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private record Head(long userId, String title, long revisionId, int revisionNumber) {
+    }
+
+    private static final class Write {
+        final SyncItem item;
+        final NoteRevision revision;
+        long noteId;
+        long revisionId;
+        boolean committed;
+        CommitResult unchanged;
+
+        Write(SyncItem item, NoteRevision revision) {
+            this.item = item;
+            this.revision = revision;
+        }
+    }
+}
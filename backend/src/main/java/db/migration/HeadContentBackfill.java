@@ -0,0 +1,82 @@
+package db.migration;
+
+import com.pleasenote.revision.DeltaCodec;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Backfills a column of {@code notes} from the body of each note's head
+ * revision, for migrations between V3 and V9 while bodies are plain-text
+ * snapshots and deltas. Only each head's delta chain is read, streamed note by
+ * note, and the updates are batched.
+ */
+final class HeadContentBackfill {
+
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * Sets the parameters of one update for a note and its head body, null if it has none.
+     */
+    interface Binder {
+        void bind(PreparedStatement update, long noteId, String content) throws SQLException;
+    }
+
+    private HeadContentBackfill() {
+    }
+
+    static void run(Connection connection, String updateSql, Binder binder) throws SQLException {
+        try (Statement select = connection.createStatement();
+             PreparedStatement update = connection.prepareStatement(updateSql)) {
+            select.setFetchSize(BATCH_SIZE);
+            ResultSet rows = select.executeQuery("""
+                SELECT n.id AS note_id, r.content, r.delta
+                FROM notes n
+                JOIN note_revisions h ON h.id = n.head_revision_id
+                JOIN note_revisions r ON r.note_id = n.id
+                    AND r.revision_number BETWEEN h.base_revision_number AND h.revision_number
+                ORDER BY n.id, r.revision_number
+                """);
+
+            long currentNote = -1;
+            byte[] current = null;
+            int pending = 0;
+
+            while (rows.next()) {
+                long noteId = rows.getLong("note_id");
+                if (noteId != currentNote && currentNote != -1) {
+                    addUpdate(update, binder, currentNote, current);
+                    if (++pending == BATCH_SIZE) {
+                        update.executeBatch();
+                        pending = 0;
+                    }
+                }
+                byte[] delta = rows.getBytes("delta");
+                if (delta == null) {
+                    String content = rows.getString("content");
+                    current = content == null ? null : content.getBytes(StandardCharsets.UTF_8);
+                } else {
+                    current = DeltaCodec.decode(current, delta);
+                }
+                currentNote = noteId;
+            }
+            if (currentNote != -1) {
+                addUpdate(update, binder, currentNote, current);
+                pending++;
+            }
+            if (pending > 0) {
+                update.executeBatch();
+            }
+        }
+    }
+
+    private static void addUpdate(PreparedStatement update, Binder binder, long noteId, byte[] content)
+        throws SQLException {
+        binder.bind(update, noteId, content == null ? null : new String(content, StandardCharsets.UTF_8));
+        update.addBatch();
+    }
+}
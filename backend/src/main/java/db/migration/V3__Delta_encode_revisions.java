@@ -0,0 +1,74 @@
+package db.migration;
+
+import com.pleasenote.revision.DeltaCodec;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Rewrites the full-copy revisions created before V2 into snapshot + delta chains,
+ * with a snapshot every 32 revisions, the default when it shipped. Rows are
+ * streamed one note at a time so only the previous body is held in memory.
+ */
+public class V3__Delta_encode_revisions extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 500;
+    private static final int SNAPSHOT_INTERVAL = 32;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+
+        try (Statement select = connection.createStatement();
+             PreparedStatement update = connection.prepareStatement(
+                 "UPDATE note_revisions SET content = NULL, delta = ?, base_revision_number = ? WHERE id = ?")) {
+            select.setFetchSize(BATCH_SIZE);
+            ResultSet rows = select.executeQuery(
+                "SELECT id, note_id, revision_number, content FROM note_revisions ORDER BY note_id, revision_number");
+
+            long currentNote = -1;
+            int base = 0;
+            byte[] previous = null;
+            int pending = 0;
+
+            while (rows.next()) {
+                long noteId = rows.getLong("note_id");
+                int revisionNumber = rows.getInt("revision_number");
+                String content = rows.getString("content");
+                byte[] target = content == null ? null : content.getBytes(StandardCharsets.UTF_8);
+
+                boolean snapshot = noteId != currentNote || previous == null || target == null
+                    || revisionNumber - base >= SNAPSHOT_INTERVAL;
+                if (!snapshot) {
+                    byte[] delta = DeltaCodec.encode(previous, target);
+                    if (delta.length < target.length) {
+                        update.setBytes(1, delta);
+                        update.setInt(2, base);
+                        update.setLong(3, rows.getLong("id"));
+                        update.addBatch();
+                        if (++pending == BATCH_SIZE) {
+                            update.executeBatch();
+                            pending = 0;
+                        }
+                    } else {
+                        snapshot = true;
+                    }
+                }
+                if (snapshot) {
+                    // V2 already marked every row as its own snapshot
+                    base = revisionNumber;
+                }
+                currentNote = noteId;
+                previous = target;
+            }
+            if (pending > 0) {
+                update.executeBatch();
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Fills {@code notes.search_vector} for existing notes with the search
+ * configuration and indexed length that were the defaults when it shipped.
+ */
+public class V6__Backfill_note_search extends BaseJavaMigration {
+
+    private static final String LANGUAGE = "english";
+    private static final int MAX_INDEXED_CHARS = 256 * 1024;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        HeadContentBackfill.run(context.getConnection(), """
+            UPDATE notes
+            SET search_vector = setweight(to_tsvector(CAST(? AS regconfig), COALESCE(title, '')), 'A')
+                || setweight(to_tsvector(CAST(? AS regconfig), ?), 'B')
+            WHERE id = ?
+            """, (update, noteId, content) -> {
+            String text = content == null ? "" : content;
+            if (text.length() > MAX_INDEXED_CHARS) {
+                text = text.substring(0, MAX_INDEXED_CHARS);
+            }
+            update.setString(1, LANGUAGE);
+            update.setString(2, LANGUAGE);
+            update.setString(3, text);
+            update.setLong(4, noteId);
+        });
+    }
+}
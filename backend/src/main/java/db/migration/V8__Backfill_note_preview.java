@@ -0,0 +1,33 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Fills {@code notes.content_preview} for existing notes from their head
+ * revisions: the first 200 characters, without splitting a surrogate pair.
+ */
+public class V8__Backfill_note_preview extends BaseJavaMigration {
+
+    private static final int PREVIEW_LENGTH = 200;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        HeadContentBackfill.run(context.getConnection(), "UPDATE notes SET content_preview = ? WHERE id = ?",
+            (update, noteId, content) -> {
+                update.setString(1, preview(content));
+                update.setLong(2, noteId);
+            });
+    }
+
+    private static String preview(String content) {
+        if (content == null) {
+            return "";
+        }
+        if (content.length() <= PREVIEW_LENGTH) {
+            return content;
+        }
+        int end = Character.isHighSurrogate(content.charAt(PREVIEW_LENGTH - 1)) ? PREVIEW_LENGTH - 1 : PREVIEW_LENGTH;
+        return content.substring(0, end);
+    }
+}
@@ -0,0 +1,12 @@
+-- Transactional outbox: one row per committed revision, inserted by the same
+-- statement as the revision and deleted by NoteEventRelay once published.
+-- No foreign keys, so events of deleted notes are still delivered.
+CREATE TABLE note_events (
+    id BIGSERIAL PRIMARY KEY,
+    type VARCHAR(16) NOT NULL,
+    note_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    revision_id BIGINT NOT NULL,
+    revision_number INT NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL
+);
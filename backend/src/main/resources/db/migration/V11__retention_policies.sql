@@ -0,0 +1,9 @@
+-- Per-user overrides of the global revisions.retention.* policy; durations are
+-- in seconds, 0 meaning the tier is off.
+CREATE TABLE retention_policies (
+    user_id BIGINT PRIMARY KEY,
+    keep_last INT NOT NULL,
+    hourly_after_seconds BIGINT NOT NULL,
+    daily_after_seconds BIGINT NOT NULL,
+    CONSTRAINT fk_retention_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
@@ -0,0 +1,12 @@
+-- Snapshot bodies move into a content-addressed table shared by every revision
+-- with the same body. hash is the SHA-256 of the UTF-8 body, body the
+-- ContentCodec encoding of it. Existing rows keep content/body until
+-- ContentBackfill moves them; exactly one of the three is set per snapshot.
+CREATE TABLE revision_blobs (
+    hash BYTEA PRIMARY KEY,
+    body BYTEA NOT NULL
+);
+
+ALTER TABLE note_revisions ADD COLUMN blob_hash BYTEA;
+ALTER TABLE note_revisions ADD CONSTRAINT fk_revision_blob FOREIGN KEY (blob_hash) REFERENCES revision_blobs(hash);
+CREATE INDEX idx_note_revisions_blob_hash ON note_revisions(blob_hash);
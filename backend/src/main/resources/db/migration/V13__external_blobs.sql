@@ -0,0 +1,2 @@
+-- A null body means the blob is kept by the file ContentStore under its hash.
+ALTER TABLE revision_blobs ALTER COLUMN body DROP NOT NULL;
@@ -0,0 +1,46 @@
+-- note_revisions becomes hash-partitioned on note_id, so every per-note query
+-- (history, chains, latest revision, compaction) touches one partition and its
+-- indexes, and vacuum works on 16 small heaps instead of one huge one. Keys of
+-- a partitioned table must contain note_id: the primary key is (note_id, id)
+-- and id stays unique through its sequence. The rows are copied over and the
+-- sequence moves to the new table, so ids and head_revision_id are unchanged.
+ALTER TABLE note_revisions RENAME TO note_revisions_unpartitioned;
+ALTER TABLE note_revisions_unpartitioned RENAME CONSTRAINT uq_revision_per_note TO uq_revision_per_note_unpartitioned;
+ALTER TABLE note_revisions_unpartitioned ALTER COLUMN id DROP DEFAULT;
+ALTER SEQUENCE note_revisions_id_seq OWNED BY NONE;
+DROP INDEX idx_revisions_note_id;
+DROP INDEX idx_note_revisions_blob_hash;
+
+CREATE TABLE note_revisions (
+    id BIGINT NOT NULL DEFAULT nextval('note_revisions_id_seq'),
+    note_id BIGINT NOT NULL,
+    content TEXT,
+    revision_number INT NOT NULL,
+    created_at TIMESTAMPTZ DEFAULT CURRENT_TIMESTAMP,
+    delta BYTEA,
+    base_revision_number INT NOT NULL,
+    body BYTEA,
+    blob_hash BYTEA,
+    CONSTRAINT pk_note_revisions PRIMARY KEY (note_id, id),
+    CONSTRAINT uq_revision_per_note UNIQUE (note_id, revision_number),
+    CONSTRAINT fk_revisions_note FOREIGN KEY (note_id) REFERENCES notes(id) ON DELETE CASCADE,
+    CONSTRAINT fk_revision_blob FOREIGN KEY (blob_hash) REFERENCES revision_blobs(hash)
+) PARTITION BY HASH (note_id);
+
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format('CREATE TABLE note_revisions_p%s PARTITION OF note_revisions '
+            'FOR VALUES WITH (MODULUS 16, REMAINDER %s)', i, i);
+    END LOOP;
+END $$;
+
+INSERT INTO note_revisions (id, note_id, content, revision_number, created_at, delta, base_revision_number, body, blob_hash)
+SELECT id, note_id, content, revision_number, created_at, delta, base_revision_number, body, blob_hash
+FROM note_revisions_unpartitioned;
+
+DROP TABLE note_revisions_unpartitioned;
+ALTER SEQUENCE note_revisions_id_seq OWNED BY note_revisions.id;
+
+-- Blob garbage collection looks revisions up by blob across all notes
+CREATE INDEX idx_note_revisions_blob_hash ON note_revisions (blob_hash);
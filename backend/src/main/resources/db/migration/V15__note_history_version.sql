@@ -0,0 +1,3 @@
+-- Bumped whenever retention deletes revisions of the note, so the history ETag
+-- changes even though the head does not.
+ALTER TABLE notes ADD COLUMN history_version INT NOT NULL DEFAULT 0;
@@ -0,0 +1,7 @@
+ALTER TABLE note_revisions ADD COLUMN delta BYTEA;
+ALTER TABLE note_revisions ADD COLUMN base_revision_number INT;
+
+-- Every existing row holds its full body, so it starts its own chain
+UPDATE note_revisions SET base_revision_number = revision_number;
+
+ALTER TABLE note_revisions ALTER COLUMN base_revision_number SET NOT NULL;
@@ -0,0 +1,8 @@
+ALTER TABLE notes ADD COLUMN head_revision_id BIGINT;
+ALTER TABLE notes ADD COLUMN head_revision_number INT;
+
+UPDATE notes n
+SET head_revision_id = r.id, head_revision_number = r.revision_number
+FROM note_revisions r
+WHERE r.note_id = n.id
+  AND r.revision_number = (SELECT MAX(revision_number) FROM note_revisions WHERE note_id = n.id);
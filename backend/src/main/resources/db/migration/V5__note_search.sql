@@ -0,0 +1,4 @@
+-- Title (weight A) and head revision content (weight B), maintained by each commit
+ALTER TABLE notes ADD COLUMN search_vector TSVECTOR;
+
+CREATE INDEX idx_notes_search_vector ON notes USING GIN (search_vector);
@@ -0,0 +1,6 @@
+-- Leading characters of the head revision, maintained by each commit
+ALTER TABLE notes ADD COLUMN content_preview VARCHAR(200);
+
+-- Serves the note list's keyset order and every user_id lookup the old index did
+CREATE INDEX idx_notes_user_updated ON notes (user_id, updated_at DESC, id DESC);
+DROP INDEX idx_notes_user_id;
@@ -0,0 +1,4 @@
+-- Snapshot bodies move from plain TEXT to a ContentCodec-encoded BYTEA (format
+-- byte + payload). Existing rows keep their TEXT body until ContentBackfill
+-- re-encodes them in the background; exactly one of the two is set per snapshot.
+ALTER TABLE note_revisions ADD COLUMN body BYTEA;
@@ -103,4 +103,25 @@ public class AuthControllerTest {
             .andExpect(status().isUnauthorized())
             .andExpect(jsonPath("$.error").value("Invalid credentials"));
     }
+
+    @Test
+    public void testLoginRateLimitedPerUsername() throws Exception {
+        Map<String, String> loginRequest = Map.of(
+            "username", "bruteforced",
+            "password", "wrongpassword"
+        );
+
+        // The default burst is 10 attempts per username
+        for (int i = 0; i < 10; i++) {
+            mockMvc.perform(post("/auth/login")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isUnauthorized());
+        }
+        mockMvc.perform(post("/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(loginRequest)))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().exists("Retry-After"));
+    }
 }
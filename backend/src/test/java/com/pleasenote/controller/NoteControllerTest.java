@@ -1,18 +1,28 @@
 package com.pleasenote.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pleasenote.revision.RetentionPolicy;
+import com.pleasenote.revision.RevisionCompactor;
+import com.pleasenote.revision.RevisionStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -27,6 +37,12 @@ public class NoteControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private RevisionCompactor revisionCompactor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private String authToken;
 
     @BeforeEach
@@ -103,6 +119,52 @@ public class NoteControllerTest {
             .andExpect(jsonPath("$.revisionNumber").value(2));
     }
 
+    @Test
+    public void testUnchangedUpdateSkipsRevision() throws Exception {
+        Map<String, String> createRequest = Map.of(
+            "title", "Autosaved",
+            "content", "Same content"
+        );
+        MvcResult createResult = mockMvc.perform(post("/notes")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createRequest)))
+            .andExpect(status().isCreated())
+            .andReturn();
+
+        Map<String, Object> createResponse = objectMapper.readValue(
+            createResult.getResponse().getContentAsString(),
+            Map.class
+        );
+        int noteId = (int) createResponse.get("noteId");
+        int revisionId = (int) createResponse.get("revisionId");
+
+        // Same title and content: the head is returned and nothing is written
+        mockMvc.perform(put("/notes/" + noteId)
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of(
+                    "lastRevisionId", revisionId,
+                    "title", "Autosaved",
+                    "content", "Same content"))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.revisionId").value(revisionId))
+            .andExpect(jsonPath("$.revisionNumber").value(1))
+            .andExpect(jsonPath("$.unchanged").value(true));
+
+        // A new title alone is still a commit
+        mockMvc.perform(put("/notes/" + noteId)
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of(
+                    "lastRevisionId", revisionId,
+                    "title", "Renamed",
+                    "content", "Same content"))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.revisionNumber").value(2))
+            .andExpect(jsonPath("$.unchanged").doesNotExist());
+    }
+
     @Test
     public void testOptimisticConcurrencyConflict() throws Exception {
         // Create note
@@ -148,6 +210,399 @@ public class NoteControllerTest {
             .andExpect(jsonPath("$.error").value("Conflict: note was modified by another session"));
     }
 
+    @Test
+    public void testStaleUpdateMergedOnRequest() throws Exception {
+        MvcResult createResult = mockMvc.perform(post("/notes")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of(
+                    "title", "Merge Note",
+                    "content", "one\ntwo\nthree\n"))))
+            .andExpect(status().isCreated())
+            .andReturn();
+        Map<String, Object> createResponse = objectMapper.readValue(
+            createResult.getResponse().getContentAsString(),
+            Map.class
+        );
+        int noteId = (int) createResponse.get("noteId");
+        int revisionId = (int) createResponse.get("revisionId");
+
+        mockMvc.perform(put("/notes/" + noteId)
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of(
+                    "lastRevisionId", revisionId,
+                    "content", "ONE\ntwo\nthree\n"))))
+            .andExpect(status().isOk());
+
+        // Edits a different line of the same base: merged into the new head
+        mockMvc.perform(put("/notes/" + noteId)
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of(
+                    "lastRevisionId", revisionId,
+                    "content", "one\ntwo\nTHREE\n",
+                    "merge", true))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.revisionNumber").value(3))
+            .andExpect(jsonPath("$.merged").value(true))
+            .andExpect(jsonPath("$.content").value("ONE\ntwo\nTHREE\n"));
+
+        // Edits the line the head already changed: reported as a conflict hunk
+        mockMvc.perform(put("/notes/" + noteId)
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of(
+                    "lastRevisionId", revisionId,
+                    "content", "uno\ntwo\nthree\n",
+                    "merge", true))))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.currentRevisionNumber").value(3))
+            .andExpect(jsonPath("$.conflicts[0].baseLine").value(1))
+            .andExpect(jsonPath("$.conflicts[0].ours").value("uno\n"))
+            .andExpect(jsonPath("$.conflicts[0].theirs").value("ONE\n"));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // events are pushed only once the commit is
+    public void testStreamPushesCommittedRevisions() throws Exception {
+        MvcResult stream = mockMvc.perform(get("/notes/stream")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        MvcResult createResult = mockMvc.perform(post("/notes")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("title", "Live", "content", "pushed"))))
+            .andExpect(status().isCreated())
+            .andReturn();
+        Map<String, Object> createResponse = objectMapper.readValue(
+            createResult.getResponse().getContentAsString(),
+            Map.class
+        );
+
+        String expected = "\"revisionId\":" + createResponse.get("revisionId");
+        String body = "";
+        for (int i = 0; i < 50 && !body.contains(expected); i++) {
+            Thread.sleep(100);
+            body = stream.getResponse().getContentAsString();
+        }
+        assertTrue(body.contains("event:revision"), body);
+        assertTrue(body.contains(expected), body);
+    }
+
+    @Test
+    public void testDiffRevisions() throws Exception {
+        MvcResult createResult = mockMvc.perform(post("/notes")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of(
+                    "title", "Diff Note",
+                    "content", "one\ntwo\nthree\n"))))
+            .andExpect(status().isCreated())
+            .andReturn();
+        Map<String, Object> createResponse = objectMapper.readValue(
+            createResult.getResponse().getContentAsString(),
+            Map.class
+        );
+        int noteId = (int) createResponse.get("noteId");
+
+        mockMvc.perform(put("/notes/" + noteId)
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of(
+                    "lastRevisionId", createResponse.get("revisionId"),
+                    "content", "one\n2\nthree\n"))))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(get("/notes/" + noteId + "/revisions/1/diff/2")
+                .param("context", "0")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.hunks.length()").value(1))
+            .andExpect(jsonPath("$.hunks[0].fromLine").value(2))
+            .andExpect(jsonPath("$.hunks[0].lines[0]").value("-two\n"))
+            .andExpect(jsonPath("$.hunks[0].lines[1]").value("+2\n"));
+
+        mockMvc.perform(get("/notes/" + noteId + "/revisions/1/diff/9")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // the head cache is evicted only once compaction commits
+    public void testCompactedRevisionsNotServedFromCache() throws Exception {
+        MvcResult createResult = mockMvc.perform(post("/notes")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of(
+                    "title", "Compacted Note",
+                    "content", "edit 1\n"))))
+            .andExpect(status().isCreated())
+            .andReturn();
+        Map<String, Object> response = objectMapper.readValue(
+            createResult.getResponse().getContentAsString(),
+            Map.class
+        );
+        int noteId = (int) response.get("noteId");
+        try {
+            // Past the first chain, so its revisions can be compacted
+            for (int i = 2; i <= RevisionStore.DEFAULT_SNAPSHOT_INTERVAL + 2; i++) {
+                MvcResult updateResult = mockMvc.perform(put("/notes/" + noteId)
+                        .header("Authorization", "Bearer " + authToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                            "lastRevisionId", response.get("revisionId"),
+                            "content", "edit " + i + "\n"))))
+                    .andExpect(status().isOk())
+                    .andReturn();
+                response = objectMapper.readValue(updateResult.getResponse().getContentAsString(), Map.class);
+            }
+
+            mockMvc.perform(get("/notes/" + noteId + "/revisions/1/diff/2")
+                    .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk());
+            String etag = "\"" + response.get("revisionId") + "\"";
+            mockMvc.perform(get("/notes/" + noteId + "/revisions?summary=true")
+                    .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", etag));
+
+            assertTrue(revisionCompactor.compact(noteId, (int) response.get("revisionNumber"),
+                new RetentionPolicy(1, Duration.ZERO, Duration.ZERO)) > 0);
+
+            mockMvc.perform(get("/notes/" + noteId + "/revisions/1/diff/2")
+                    .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isNotFound());
+            mockMvc.perform(get("/notes/" + noteId + "/revisions?summary=true")
+                    .header("Authorization", "Bearer " + authToken)
+                    .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", startsWith("\"" + response.get("revisionId") + ".")));
+            mockMvc.perform(get("/notes/" + noteId)
+                    .header("Authorization", "Bearer " + authToken)
+                    .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        } finally {
+            // Committed for real, so the user and (by cascade) the note are removed by hand
+            jdbcTemplate.update("DELETE FROM users WHERE id = (SELECT user_id FROM notes WHERE id = ?)", noteId);
+        }
+    }
+
+    @Test
+    public void testNoteReadsRejectMissingAndForeignNotes() throws Exception {
+        MvcResult createResult = mockMvc.perform(post("/notes")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("title", "Private", "content", "mine"))))
+            .andExpect(status().isCreated())
+            .andReturn();
+        Map<String, Object> createResponse = objectMapper.readValue(
+            createResult.getResponse().getContentAsString(),
+            Map.class
+        );
+        int noteId = (int) createResponse.get("noteId");
+
+        MvcResult otherResult = mockMvc.perform(post("/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of(
+                    "username", "otheruser" + System.nanoTime(),
+                    "email", "other" + System.nanoTime() + "@example.com",
+                    "password", "password123"))))
+            .andExpect(status().isCreated())
+            .andReturn();
+        String otherToken = (String) objectMapper.readValue(
+            otherResult.getResponse().getContentAsString(),
+            Map.class
+        ).get("accessToken");
+
+        for (String path : List.of("", "/revisions", "/revisions/1/diff/1", "/revisions/1/content")) {
+            mockMvc.perform(get("/notes/" + Integer.MAX_VALUE + path)
+                    .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Note not found"));
+            mockMvc.perform(get("/notes/" + noteId + path)
+                    .header("Authorization", "Bearer " + otherToken))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.error").value("Not your note"));
+        }
+    }
+
+    @Test
+    public void testCreateAndUpdateWithTextBody() throws Exception {
+        MvcResult createResult = mockMvc.perform(post("/notes")
+                .param("title", "Text Note")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.TEXT_PLAIN)
+                .content("plain ✓".getBytes(StandardCharsets.UTF_8)))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.revisionNumber").value(1))
+            .andExpect(jsonPath("$.unchanged").doesNotExist())
+            .andReturn();
+        Map<String, Object> createResponse = objectMapper.readValue(
+            createResult.getResponse().getContentAsString(),
+            Map.class
+        );
+        int noteId = (int) createResponse.get("noteId");
+
+        mockMvc.perform(put("/notes/" + noteId)
+                .param("lastRevisionId", String.valueOf(createResponse.get("revisionId")))
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.TEXT_PLAIN)
+                .content("edited ✓".getBytes(StandardCharsets.UTF_8)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.revisionNumber").value(2));
+
+        mockMvc.perform(put("/notes/" + noteId)
+                .param("lastRevisionId", String.valueOf(createResponse.get("revisionId")))
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.TEXT_PLAIN)
+                .content("stale"))
+            .andExpect(status().isConflict());
+
+        mockMvc.perform(get("/notes/" + noteId + "/revisions/2/content")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(content().bytes("edited ✓".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testGetRevisionContent() throws Exception {
+        MvcResult createResult = mockMvc.perform(post("/notes")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of(
+                    "title", "Content Note",
+                    "content", "first"))))
+            .andExpect(status().isCreated())
+            .andReturn();
+        Map<String, Object> createResponse = objectMapper.readValue(
+            createResult.getResponse().getContentAsString(),
+            Map.class
+        );
+        int noteId = (int) createResponse.get("noteId");
+
+        mockMvc.perform(put("/notes/" + noteId)
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of(
+                    "lastRevisionId", createResponse.get("revisionId"),
+                    "content", "second é"))))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(get("/notes/" + noteId + "/revisions/1/content")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_PLAIN))
+            .andExpect(content().bytes("first".getBytes(StandardCharsets.UTF_8)));
+
+        mockMvc.perform(get("/notes/" + noteId + "/revisions/2/content")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk())
+            .andExpect(content().bytes("second é".getBytes(StandardCharsets.UTF_8)));
+
+        mockMvc.perform(get("/notes/" + noteId + "/revisions/3/content")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testGetRevisionContentOfNoteWithoutContent() throws Exception {
+        MvcResult createResult = mockMvc.perform(post("/notes")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("title", "Title Only"))))
+            .andExpect(status().isCreated())
+            .andReturn();
+        Map<String, Object> createResponse = objectMapper.readValue(
+            createResult.getResponse().getContentAsString(),
+            Map.class
+        );
+
+        mockMvc.perform(get("/notes/" + createResponse.get("noteId") + "/revisions/1/content")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk())
+            .andExpect(content().string(""));
+    }
+
+    @Test
+    public void testGetNoteHonorsIfNoneMatch() throws Exception {
+        MvcResult createResult = mockMvc.perform(post("/notes")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of(
+                    "title", "Polled Note",
+                    "content", "first"))))
+            .andExpect(status().isCreated())
+            .andReturn();
+        Map<String, Object> createResponse = objectMapper.readValue(
+            createResult.getResponse().getContentAsString(),
+            Map.class
+        );
+        int noteId = (int) createResponse.get("noteId");
+        String etag = "\"" + createResponse.get("revisionId") + "\"";
+
+        mockMvc.perform(get("/notes/" + noteId)
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", etag))
+            .andExpect(jsonPath("$.title").value("Polled Note"))
+            .andExpect(jsonPath("$.content").value("first"));
+
+        mockMvc.perform(get("/notes/" + noteId)
+                .header("Authorization", "Bearer " + authToken)
+                .header("If-None-Match", etag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+
+        mockMvc.perform(get("/notes/" + noteId + "/revisions?summary=true")
+                .header("Authorization", "Bearer " + authToken)
+                .header("If-None-Match", "W/" + etag))
+            .andExpect(status().isNotModified());
+
+        mockMvc.perform(put("/notes/" + noteId)
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of(
+                    "lastRevisionId", createResponse.get("revisionId"),
+                    "content", "second"))))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(get("/notes/" + noteId)
+                .header("Authorization", "Bearer " + authToken)
+                .header("If-None-Match", etag))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.revisionNumber").value(2))
+            .andExpect(jsonPath("$.content").value("second"));
+
+        mockMvc.perform(get("/notes/" + noteId + "/revisions?summary=true")
+                .header("Authorization", "Bearer " + authToken)
+                .header("If-None-Match", etag))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    public void testGetNoteWithoutContent() throws Exception {
+        MvcResult createResult = mockMvc.perform(post("/notes")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("title", "Title Only"))))
+            .andExpect(status().isCreated())
+            .andReturn();
+        Map<String, Object> createResponse = objectMapper.readValue(
+            createResult.getResponse().getContentAsString(),
+            Map.class
+        );
+
+        mockMvc.perform(get("/notes/" + createResponse.get("noteId"))
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.title").value("Title Only"))
+            .andExpect(jsonPath("$.revisionNumber").value(1))
+            .andExpect(jsonPath("$.content").value(""));
+    }
+
     @Test
     public void testGetRevisions() throws Exception {
         // Create note
@@ -176,6 +631,357 @@ public class NoteControllerTest {
             .andExpect(jsonPath("$[0].content").value("Original content"));
     }
 
+    @Test
+    public void testGetRevisionsReconstructsEditHistory() throws Exception {
+        // Create a note large enough that edits are stored as deltas
+        String body = "Line of note content.\n".repeat(200);
+        Map<String, String> createRequest = Map.of(
+            "title", "Long Note",
+            "content", body
+        );
+        MvcResult createResult = mockMvc.perform(post("/notes")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createRequest)))
+            .andExpect(status().isCreated())
+            .andReturn();
+
+        Map<String, Object> createResponse = objectMapper.readValue(
+            createResult.getResponse().getContentAsString(),
+            Map.class
+        );
+        int noteId = (int) createResponse.get("noteId");
+        int revisionId = (int) createResponse.get("revisionId");
+
+        // Append a line per update
+        for (int i = 1; i <= 5; i++) {
+            body = body + "Edit " + i + "\n";
+            Map<String, Object> updateRequest = Map.of(
+                "lastRevisionId", revisionId,
+                "content", body
+            );
+            MvcResult updateResult = mockMvc.perform(put("/notes/" + noteId)
+                    .header("Authorization", "Bearer " + authToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(updateRequest)))
+                .andExpect(status().isOk())
+                .andReturn();
+            Map<String, Object> updateResponse = objectMapper.readValue(
+                updateResult.getResponse().getContentAsString(),
+                Map.class
+            );
+            revisionId = (int) updateResponse.get("revisionId");
+        }
+
+        mockMvc.perform(get("/notes/" + noteId + "/revisions")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(6))
+            .andExpect(jsonPath("$[3].content").value("Line of note content.\n".repeat(200) + "Edit 1\nEdit 2\nEdit 3\n"))
+            .andExpect(jsonPath("$[5].content").value(body));
+    }
+
+    @Test
+    public void testGetRevisionsPaginatedSummary() throws Exception {
+        // Create note
+        Map<String, String> createRequest = Map.of(
+            "title", "Test Note",
+            "content", "Original content"
+        );
+        MvcResult createResult = mockMvc.perform(post("/notes")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createRequest)))
+            .andExpect(status().isCreated())
+            .andReturn();
+
+        Map<String, Object> createResponse = objectMapper.readValue(
+            createResult.getResponse().getContentAsString(),
+            Map.class
+        );
+        int noteId = (int) createResponse.get("noteId");
+        int revisionId = (int) createResponse.get("revisionId");
+
+        // Two more revisions
+        for (int i = 1; i <= 2; i++) {
+            Map<String, Object> updateRequest = Map.of(
+                "lastRevisionId", revisionId,
+                "content", "Update " + i
+            );
+            MvcResult updateResult = mockMvc.perform(put("/notes/" + noteId)
+                    .header("Authorization", "Bearer " + authToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(updateRequest)))
+                .andExpect(status().isOk())
+                .andReturn();
+            Map<String, Object> updateResponse = objectMapper.readValue(
+                updateResult.getResponse().getContentAsString(),
+                Map.class
+            );
+            revisionId = (int) updateResponse.get("revisionId");
+        }
+
+        // First page: summaries only, with a cursor
+        mockMvc.perform(get("/notes/" + noteId + "/revisions")
+                .param("limit", "2")
+                .param("summary", "true")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.revisions.length()").value(2))
+            .andExpect(jsonPath("$.revisions[0].revisionNumber").value(1))
+            .andExpect(jsonPath("$.revisions[0].content").doesNotExist())
+            .andExpect(jsonPath("$.nextCursor").value(2));
+
+        // Second page: the rest, with content
+        mockMvc.perform(get("/notes/" + noteId + "/revisions")
+                .param("after", "2")
+                .param("limit", "2")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.revisions.length()").value(1))
+            .andExpect(jsonPath("$.revisions[0].revisionNumber").value(3))
+            .andExpect(jsonPath("$.revisions[0].content").value("Update 2"))
+            .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    public void testSearchNotesMatchesTitleAndLatestContent() throws Exception {
+        // Create two notes
+        Map<String, String> groceries = Map.of(
+            "title", "Groceries",
+            "content", "Buy apples and bread"
+        );
+        MvcResult createResult = mockMvc.perform(post("/notes")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(groceries)))
+            .andExpect(status().isCreated())
+            .andReturn();
+        Map<String, Object> createResponse = objectMapper.readValue(
+            createResult.getResponse().getContentAsString(),
+            Map.class
+        );
+        int noteId = (int) createResponse.get("noteId");
+        int revisionId = (int) createResponse.get("revisionId");
+
+        Map<String, String> recipes = Map.of(
+            "title", "Apple pie",
+            "content", "Slice the apples thinly"
+        );
+        mockMvc.perform(post("/notes")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(recipes)))
+            .andExpect(status().isCreated());
+
+        // Title matches rank above body matches
+        mockMvc.perform(get("/notes/search")
+                .param("q", "apple")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.results.length()").value(2))
+            .andExpect(jsonPath("$.results[0].title").value("Apple pie"))
+            .andExpect(jsonPath("$.nextOffset").doesNotExist());
+
+        // Replacing the content re-indexes the note
+        Map<String, Object> updateRequest = Map.of(
+            "lastRevisionId", revisionId,
+            "content", "Buy milk"
+        );
+        MvcResult updateResult = mockMvc.perform(put("/notes/" + noteId)
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updateRequest)))
+            .andExpect(status().isOk())
+            .andReturn();
+        Map<String, Object> updateResponse = objectMapper.readValue(
+            updateResult.getResponse().getContentAsString(),
+            Map.class
+        );
+
+        mockMvc.perform(get("/notes/search")
+                .param("q", "apples")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.results.length()").value(1))
+            .andExpect(jsonPath("$.results[0].title").value("Apple pie"));
+
+        mockMvc.perform(get("/notes/search")
+                .param("q", "milk")
+                .param("limit", "1")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.results.length()").value(1))
+            .andExpect(jsonPath("$.results[0].noteId").value(noteId))
+            .andExpect(jsonPath("$.results[0].revisionId").value(updateResponse.get("revisionId")))
+            .andExpect(jsonPath("$.results[0].revisionNumber").value(2));
+
+        mockMvc.perform(get("/notes/search")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testSyncAppliesBatchInOrder() throws Exception {
+        // Create a note and replay two offline edits from the same base
+        Map<String, Object> createBatch = Map.of("items", List.of(
+            Map.of("title", "Offline note", "content", "Draft")
+        ));
+        MvcResult createResult = mockMvc.perform(post("/notes/sync")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createBatch)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.results[0].status").value(201))
+            .andExpect(jsonPath("$.results[0].revisionNumber").value(1))
+            .andReturn();
+
+        Map<String, Object> createResponse = objectMapper.readValue(
+            createResult.getResponse().getContentAsString(),
+            Map.class
+        );
+        Map<String, Object> created = ((List<Map<String, Object>>) createResponse.get("results")).get(0);
+        int noteId = (int) created.get("noteId");
+        int revisionId = (int) created.get("revisionId");
+
+        Map<String, Object> updateBatch = Map.of("items", List.of(
+            Map.of("noteId", noteId, "lastRevisionId", revisionId, "content", "Draft, edited"),
+            Map.of("noteId", noteId, "lastRevisionId", revisionId, "content", "Draft, edited elsewhere"),
+            Map.of("title", "Second offline note", "content", "More")
+        ));
+        mockMvc.perform(post("/notes/sync")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updateBatch)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.results.length()").value(3))
+            .andExpect(jsonPath("$.results[0].status").value(200))
+            .andExpect(jsonPath("$.results[0].revisionNumber").value(2))
+            .andExpect(jsonPath("$.results[1].status").value(409))
+            .andExpect(jsonPath("$.results[1].currentRevisionNumber").value(2))
+            .andExpect(jsonPath("$.results[2].status").value(201));
+
+        mockMvc.perform(get("/notes/" + noteId + "/revisions")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[1].content").value("Draft, edited"));
+
+        // Updates need a base revision, creates a title
+        Map<String, Object> invalidBatch = Map.of("items", List.of(
+            Map.of("title", "Fine", "content", "Valid"),
+            Map.of("noteId", noteId, "content", "No base")
+        ));
+        mockMvc.perform(post("/notes/sync")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(invalidBatch)))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("items[1]: lastRevisionId is required"));
+
+        mockMvc.perform(post("/notes/sync")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("items", List.of(Map.of("content", "Untitled"))))))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("items[0]: title is required"));
+
+        mockMvc.perform(post("/notes/sync")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("items", List.of()))))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("items is required"));
+    }
+
+    @Test
+    public void testSyncReplayOfUnchangedContentWritesNothing() throws Exception {
+        MvcResult createResult = mockMvc.perform(post("/notes/sync")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("items", List.of(
+                    Map.of("title", "Autosaved", "content", "Same")
+                )))))
+            .andExpect(status().isOk())
+            .andReturn();
+        Map<String, Object> createResponse = objectMapper.readValue(
+            createResult.getResponse().getContentAsString(),
+            Map.class
+        );
+        Map<String, Object> created = ((List<Map<String, Object>>) createResponse.get("results")).get(0);
+        int noteId = (int) created.get("noteId");
+        int revisionId = (int) created.get("revisionId");
+
+        // Replayed autosaves are free until an item changes the note; a replay from the old base then conflicts
+        Map<String, Object> replayBatch = Map.of("items", List.of(
+            Map.of("noteId", noteId, "lastRevisionId", revisionId, "content", "Same"),
+            Map.of("noteId", noteId, "lastRevisionId", revisionId, "title", "Autosaved", "content", "Same"),
+            Map.of("noteId", noteId, "lastRevisionId", revisionId, "title", "Renamed", "content", "Same"),
+            Map.of("noteId", noteId, "lastRevisionId", revisionId, "content", "Same")
+        ));
+        mockMvc.perform(post("/notes/sync")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(replayBatch)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.results[0].status").value(200))
+            .andExpect(jsonPath("$.results[0].unchanged").value(true))
+            .andExpect(jsonPath("$.results[0].revisionId").value(revisionId))
+            .andExpect(jsonPath("$.results[0].revisionNumber").value(1))
+            .andExpect(jsonPath("$.results[1].unchanged").value(true))
+            .andExpect(jsonPath("$.results[2].status").value(200))
+            .andExpect(jsonPath("$.results[2].unchanged").doesNotExist())
+            .andExpect(jsonPath("$.results[2].revisionNumber").value(2))
+            .andExpect(jsonPath("$.results[3].status").value(409))
+            .andExpect(jsonPath("$.results[3].currentRevisionNumber").value(2));
+
+        mockMvc.perform(get("/notes/" + noteId + "/revisions?summary=true")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    public void testListNotesNewestFirstWithCursor() throws Exception {
+        // Create three notes
+        for (int i = 1; i <= 3; i++) {
+            Map<String, String> noteRequest = Map.of(
+                "title", "Note " + i,
+                "content", "Body of note " + i + "\n" + "x".repeat(500)
+            );
+            mockMvc.perform(post("/notes")
+                    .header("Authorization", "Bearer " + authToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(noteRequest)))
+                .andExpect(status().isCreated());
+        }
+
+        MvcResult firstPage = mockMvc.perform(get("/notes")
+                .param("limit", "2")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.notes.length()").value(2))
+            .andExpect(jsonPath("$.notes[0].title").value("Note 3"))
+            .andExpect(jsonPath("$.notes[0].revisionNumber").value(1))
+            .andExpect(jsonPath("$.notes[0].preview").value(("Body of note 3\n" + "x".repeat(500)).substring(0, 200)))
+            .andExpect(jsonPath("$.notes[1].title").value("Note 2"))
+            .andExpect(jsonPath("$.nextCursor").exists())
+            .andReturn();
+
+        Map<String, Object> response = objectMapper.readValue(
+            firstPage.getResponse().getContentAsString(),
+            Map.class
+        );
+        mockMvc.perform(get("/notes")
+                .param("limit", "2")
+                .param("cursor", (String) response.get("nextCursor"))
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.notes.length()").value(1))
+            .andExpect(jsonPath("$.notes[0].title").value("Note 1"))
+            .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
     @Test
     public void testUnauthenticatedRequestReturns401() throws Exception {
         mockMvc.perform(post("/notes")
@@ -183,4 +989,10 @@ public class NoteControllerTest {
                 .content("{\"title\":\"Test\",\"content\":\"Test\"}"))
             .andExpect(status().isUnauthorized());
     }
+
+    @Test
+    public void testPrometheusNeedsTokenOnApiPort() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+            .andExpect(status().isForbidden());
+    }
 }
@@ -0,0 +1,40 @@
+package com.pleasenote.events;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileNoteEventSinkTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testAppendsOneJsonLinePerEvent() throws Exception {
+        JsonMapper jsonMapper = JsonMapper.builder().build();
+        Path file = dir.resolve("events.jsonl");
+        FileNoteEventSink sink = new FileNoteEventSink(file, jsonMapper);
+        Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        sink.publish(List.of(new NoteEvent(1, NoteEvent.Type.CREATED, 10, 7, 100, 1, now)));
+        sink.publish(List.of(
+            new NoteEvent(2, NoteEvent.Type.UPDATED, 10, 7, 101, 2, now),
+            new NoteEvent(3, NoteEvent.Type.UPDATED, 10, 7, 102, 3, now)));
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(3, lines.size());
+        JsonNode first = jsonMapper.readTree(lines.get(0));
+        assertEquals("CREATED", first.get("type").asString());
+        assertEquals(100, first.get("revisionId").asLong());
+        assertEquals("2026-01-01T00:00:00Z", first.get("createdAt").asString());
+        assertEquals(3, jsonMapper.readTree(lines.get(2)).get("revisionNumber").asInt());
+    }
+}
@@ -0,0 +1,63 @@
+package com.pleasenote.events;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NoteChangeBroadcasterTest {
+
+    @Test
+    public void testStalledWritesGrowSendersOnlyUpToCap() throws Exception {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        CountDownLatch release = new CountDownLatch(1);
+        NoteChangeBroadcaster broadcaster = new NoteChangeBroadcaster(registry, 1, 256, 8,
+            Duration.ofMinutes(30), Duration.ofMinutes(30), Duration.ofMillis(20), 2) {
+            @Override
+            SseEmitter newEmitter(long timeoutMs) {
+                // Every write blocks like a client that stopped reading
+                return new SseEmitter(timeoutMs) {
+                    @Override
+                    public void send(SseEventBuilder builder) {
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                };
+            }
+        };
+        try {
+            for (long userId = 1; userId <= 6; userId++) {
+                assertNotNull(broadcaster.subscribe(userId));
+            }
+            for (int i = 0; i < 250 && registry.get("notes.stream.stalled").counter().count() < 3; i++) {
+                Thread.sleep(20);
+            }
+            assertEquals(3, registry.get("notes.stream.stalled").counter().count());
+
+            // Further timeouts pass without adding threads, and new streams are refused
+            Thread.sleep(200);
+            assertEquals(3, registry.get("notes.stream.senders").gauge().value());
+            assertNull(broadcaster.subscribe(7));
+            assertEquals(1, registry.get("notes.stream.rejected").counter().count());
+
+            release.countDown();
+            SseEmitter emitter = null;
+            for (int i = 0; i < 250 && emitter == null; i++) {
+                Thread.sleep(20);
+                emitter = broadcaster.subscribe(8);
+            }
+            assertNotNull(emitter);
+        } finally {
+            release.countDown();
+            broadcaster.destroy();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.pleasenote.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StageTimersTest {
+
+    @Test
+    public void testRecordsStageAndCountsSlowOnes() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StageTimers.Stage stage = new StageTimers(registry, Duration.ofMillis(50)).stage("notes.commit", "write");
+
+        long now = System.nanoTime();
+        long next = stage.record(now);
+        stage.record(now - TimeUnit.MILLISECONDS.toNanos(100));
+
+        assertTrue(next >= now);
+        assertEquals(2, registry.get("notes.commit").tag("stage", "write").timer().count());
+        assertEquals(1.0, registry.get("notes.commit.slow").tag("stage", "write").counter().count());
+    }
+}
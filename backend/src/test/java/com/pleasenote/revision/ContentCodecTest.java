@@ -0,0 +1,51 @@
+package com.pleasenote.revision;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContentCodecTest {
+
+    private final ContentCodec codec = new ContentCodec(1024, ContentCodec.DEFAULT_LEVEL);
+
+    @Test
+    public void testSmallBodyStoredRaw() {
+        byte[] body = codec.encode("short note ✓");
+
+        assertEquals(ContentCodec.RAW, body[0]);
+        assertEquals("short note ✓", ContentCodec.decode(body));
+    }
+
+    @Test
+    public void testLargeBodyCompressed() {
+        String content = "The quick brown fox jumps over the lazy dog. ✓\n".repeat(1000);
+
+        byte[] body = codec.encode(content);
+
+        assertEquals(ContentCodec.ZSTD, body[0]);
+        assertTrue(body.length < content.length() / 10, "expected a small frame, was " + body.length);
+        assertEquals(content, ContentCodec.decode(body));
+    }
+
+    @Test
+    public void testNullAndEmpty() {
+        assertNull(codec.encode(null));
+        assertNull(ContentCodec.decode(null));
+        assertEquals("", ContentCodec.decode(codec.encode("")));
+    }
+
+    @Test
+    public void testHashIdentifiesBody() {
+        assertArrayEquals(ContentCodec.hash("same ✓"), ContentCodec.hash("same ✓"));
+        assertFalse(Arrays.equals(ContentCodec.hash("same ✓"), ContentCodec.hash("same ✗")));
+        assertEquals(32, ContentCodec.hash("").length);
+        assertNull(ContentCodec.hash(null));
+    }
+
+    @Test
+    public void testUnknownFormatRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ContentCodec.decode(new byte[] {7, 1, 2}));
+    }
+}
@@ -0,0 +1,89 @@
+package com.pleasenote.revision;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeltaCodecTest {
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testRoundTripSmallEdit() {
+        byte[] source = bytes("The quick brown fox jumps over the lazy dog.\n".repeat(200));
+        byte[] target = bytes(("The quick brown fox jumps over the lazy dog.\n".repeat(100))
+            + "An inserted line in the middle.\n"
+            + "The quick brown fox jumps over the lazy dog.\n".repeat(100));
+
+        byte[] delta = DeltaCodec.encode(source, target);
+
+        assertArrayEquals(target, DeltaCodec.decode(source, delta));
+        assertTrue(delta.length < 100, "delta should only carry the inserted line, was " + delta.length);
+    }
+
+    @Test
+    public void testRoundTripScatteredEdits() {
+        Random random = new Random(42);
+        byte[] source = new byte[64 * 1024];
+        for (int i = 0; i < source.length; i++) {
+            source[i] = (byte) ('a' + random.nextInt(26));
+        }
+        byte[] target = source.clone();
+        for (int i = 0; i < 20; i++) {
+            target[random.nextInt(target.length)] = '#';
+        }
+
+        byte[] delta = DeltaCodec.encode(source, target);
+
+        assertArrayEquals(target, DeltaCodec.decode(source, delta));
+        assertTrue(delta.length < 1024, "scattered edits should stay small, was " + delta.length);
+    }
+
+    @Test
+    public void testRoundTripEdgeCases() {
+        byte[][] inputs = {
+            new byte[0],
+            bytes("short"),
+            bytes("completely different text that shares nothing"),
+            bytes("shortshortshortshortshortshortshort"),
+        };
+        for (byte[] source : inputs) {
+            for (byte[] target : inputs) {
+                assertArrayEquals(target, DeltaCodec.decode(source, DeltaCodec.encode(source, target)));
+            }
+        }
+    }
+
+    @Test
+    public void testDecodeChainMatchesStepwiseDecode() {
+        List<byte[]> bodies = new ArrayList<>();
+        bodies.add(bytes("line\n".repeat(500)));
+        bodies.add(bytes("line\n".repeat(200) + "middle\n" + "line\n".repeat(300)));
+        bodies.add(bytes("line\n".repeat(1000)));
+        bodies.add(bytes("short\n"));
+        bodies.add(bytes("short\n" + "tail\n".repeat(400)));
+
+        List<byte[]> deltas = new ArrayList<>();
+        for (int i = 1; i < bodies.size(); i++) {
+            deltas.add(DeltaCodec.encode(bodies.get(i - 1), bodies.get(i)));
+            assertArrayEquals(bodies.get(i), DeltaCodec.decodeChain(bodies.get(0), deltas));
+        }
+        assertSame(bodies.get(0), DeltaCodec.decodeChain(bodies.get(0), List.of()));
+    }
+
+    @Test
+    public void testDecodeRejectsCorruptDelta() {
+        byte[] source = bytes("hello world");
+        byte[] delta = DeltaCodec.encode(source, bytes("hello there world"));
+        delta[0] = 99;
+
+        assertThrows(IllegalArgumentException.class, () -> DeltaCodec.decode(source, delta));
+    }
+}
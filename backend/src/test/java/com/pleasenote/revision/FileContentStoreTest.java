@@ -0,0 +1,48 @@
+package com.pleasenote.revision;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileContentStoreTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    public void testPutGetAndDelete() {
+        FileContentStore store = new FileContentStore(root);
+        byte[] content = "large note ✓\n".repeat(1000).getBytes(StandardCharsets.UTF_8);
+        byte[] hash = ContentCodec.hashBytes(content);
+
+        store.put(hash, content);
+        store.put(hash, content);
+
+        assertArrayEquals(content, store.get(hash));
+        store.delete(hash);
+        assertNull(store.get(hash));
+        assertNull(store.open(hash));
+    }
+
+    @Test
+    public void testOpenedBodyOutlivesDelete() throws Exception {
+        FileContentStore store = new FileContentStore(root);
+        byte[] content = "streamed ✓".getBytes(StandardCharsets.UTF_8);
+        byte[] hash = ContentCodec.hashBytes(content);
+        store.put(hash, content);
+
+        Resource resource = store.open(hash);
+        store.delete(hash);
+
+        assertEquals(content.length, resource.contentLength());
+        try (InputStream in = resource.getInputStream()) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.pleasenote.revision;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RetentionPolicyTest {
+
+    private static final Instant NOW = Instant.parse("2026-06-15T12:00:00Z");
+
+    private static List<RetentionPolicy.Revision> revisions(Instant first, Duration step, int count) {
+        List<RetentionPolicy.Revision> revisions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            revisions.add(new RetentionPolicy.Revision(i + 1, i + 1, first.plus(step.multipliedBy(i))));
+        }
+        return revisions;
+    }
+
+    @Test
+    public void testKeepLastOnly() {
+        RetentionPolicy policy = new RetentionPolicy(3, Duration.ZERO, Duration.ZERO);
+
+        Set<Long> expired = policy.expired(revisions(NOW.minusSeconds(100), Duration.ofSeconds(10), 10), NOW);
+
+        assertEquals(Set.of(1L, 2L, 3L, 4L, 5L, 6L, 7L), expired);
+    }
+
+    @Test
+    public void testRecentRevisionsKept() {
+        RetentionPolicy policy = new RetentionPolicy(1, Duration.ofDays(1), Duration.ofDays(30));
+
+        assertTrue(policy.expired(revisions(NOW.minusSeconds(3600), Duration.ofMinutes(1), 50), NOW).isEmpty());
+    }
+
+    @Test
+    public void testHourlyCheckpoints() {
+        RetentionPolicy policy = new RetentionPolicy(1, Duration.ofHours(1), Duration.ZERO);
+        // Every 20 minutes from 10:00 to 11:40, then 11:59
+        List<RetentionPolicy.Revision> revisions = revisions(Instant.parse("2026-06-15T10:00:00Z"),
+            Duration.ofMinutes(20), 6);
+        revisions.add(new RetentionPolicy.Revision(7, 7, Instant.parse("2026-06-15T11:59:00Z")));
+
+        Set<Long> expired = policy.expired(revisions, NOW);
+
+        // 10:40 is the last of its hour; 11:00 is an hour old but not the last of its hour, 11:20 is younger
+        assertEquals(Set.of(1L, 2L, 4L), expired);
+    }
+
+    @Test
+    public void testDailyCheckpoints() {
+        RetentionPolicy policy = new RetentionPolicy(1, Duration.ofHours(1), Duration.ofDays(2));
+        List<RetentionPolicy.Revision> revisions = revisions(NOW.minus(Duration.ofDays(5)), Duration.ofHours(6), 20);
+
+        Set<Long> expired = policy.expired(revisions, NOW);
+
+        // Days older than two keep one revision each, younger ones one per hour (every revision here)
+        for (RetentionPolicy.Revision revision : revisions) {
+            boolean old = Duration.between(revision.createdAt(), NOW).compareTo(Duration.ofDays(2)) >= 0;
+            boolean lastOfDay = revision.revisionNumber() == revisions.size()
+                || !revisions.get(revision.revisionNumber()).createdAt().truncatedTo(ChronoUnit.DAYS)
+                    .equals(revision.createdAt().truncatedTo(ChronoUnit.DAYS));
+            assertEquals(old && !lastOfDay, expired.contains(revision.id()), "revision " + revision.id());
+        }
+        assertFalse(expired.isEmpty());
+    }
+
+    @Test
+    public void testHeadAlwaysKept() {
+        RetentionPolicy policy = new RetentionPolicy(0, Duration.ofSeconds(1), Duration.ZERO);
+
+        Set<Long> expired = policy.expired(revisions(NOW.minus(Duration.ofDays(1)), Duration.ZERO, 5), NOW);
+
+        assertEquals(Set.of(1L, 2L, 3L, 4L), expired);
+    }
+
+    @Test
+    public void testDisabledPolicyKeepsAll() {
+        RetentionPolicy policy = new RetentionPolicy(0, Duration.ZERO, Duration.ZERO);
+
+        assertTrue(policy.keepsAll());
+        assertTrue(policy.expired(revisions(NOW.minus(Duration.ofDays(100)), Duration.ofDays(1), 10), NOW).isEmpty());
+    }
+}
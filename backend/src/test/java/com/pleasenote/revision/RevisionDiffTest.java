@@ -0,0 +1,55 @@
+package com.pleasenote.revision;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RevisionDiffTest {
+
+    private static String lines(int from, int to) {
+        StringBuilder text = new StringBuilder();
+        for (int i = from; i <= to; i++) {
+            text.append("line ").append(i).append('\n');
+        }
+        return text.toString();
+    }
+
+    @Test
+    public void testSingleChangeWithContext() {
+        String before = lines(1, 10);
+        String after = before.replace("line 5\n", "line five\n");
+
+        List<RevisionDiff.Hunk> hunks = RevisionDiff.hunks(before, after, 2);
+
+        assertEquals(1, hunks.size());
+        RevisionDiff.Hunk hunk = hunks.get(0);
+        assertEquals(3, hunk.fromLine());
+        assertEquals(5, hunk.fromCount());
+        assertEquals(3, hunk.toLine());
+        assertEquals(5, hunk.toCount());
+        assertEquals(List.of(" line 3\n", " line 4\n", "-line 5\n", "+line five\n", " line 6\n", " line 7\n"),
+            hunk.lines());
+    }
+
+    @Test
+    public void testDistantChangesSplitIntoHunks() {
+        String before = lines(1, 30);
+        String after = before.replace("line 2\n", "").replace("line 25\n", "line 25\nnew line\n");
+
+        List<RevisionDiff.Hunk> hunks = RevisionDiff.hunks(before, after, 3);
+
+        assertEquals(2, hunks.size());
+        assertEquals(List.of(" line 1\n", "-line 2\n", " line 3\n", " line 4\n", " line 5\n"), hunks.get(0).lines());
+        assertEquals(23, hunks.get(1).fromLine());
+        assertEquals(22, hunks.get(1).toLine());
+        assertEquals(7, hunks.get(1).toCount());
+    }
+
+    @Test
+    public void testIdenticalHaveNoHunks() {
+        assertTrue(RevisionDiff.hunks("same\n", "same\n", 3).isEmpty());
+        assertEquals(List.of("+added"), RevisionDiff.hunks(null, "added", 3).get(0).lines());
+    }
+}
@@ -0,0 +1,91 @@
+package com.pleasenote.revision;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ThreeWayMergeTest {
+
+    private static final String BASE = "one\ntwo\nthree\nfour\nfive\nsix\n";
+
+    @Test
+    public void testMergesEditsToDifferentLines() {
+        ThreeWayMerge.Result result = ThreeWayMerge.merge(BASE,
+            "one\nTWO\nthree\nfour\nfive\nsix\n",
+            "one\ntwo\nthree\nfour\nFIVE\nsix\nseven\n");
+
+        assertTrue(result.isClean());
+        assertEquals("one\nTWO\nthree\nfour\nFIVE\nsix\nseven\n", result.merged());
+    }
+
+    @Test
+    public void testIdenticalEditsMergeOnce() {
+        String edited = "one\ntwo\n3\nfour\nfive\nsix\n";
+
+        ThreeWayMerge.Result result = ThreeWayMerge.merge(BASE, edited, "zero\n" + edited);
+
+        assertTrue(result.isClean());
+        assertEquals("zero\n" + edited, result.merged());
+    }
+
+    @Test
+    public void testSameLineEditedApartMergesPerCharacter() {
+        ThreeWayMerge.Result result = ThreeWayMerge.merge(
+            "The quick brown fox jumps over the lazy dog.\n",
+            "The quick red fox jumps over the lazy dog.\n",
+            "The quick brown fox jumps over the sleepy dog.\n");
+
+        assertTrue(result.isClean());
+        assertEquals("The quick red fox jumps over the sleepy dog.\n", result.merged());
+    }
+
+    @Test
+    public void testOverlappingEditsConflict() {
+        ThreeWayMerge.Result result = ThreeWayMerge.merge(BASE,
+            "one\ntwo\nthree\nFour\nfive\nsix\n",
+            "one\ntwo\nthree\n4\nfive\nsix\n");
+
+        assertFalse(result.isClean());
+        assertNull(result.merged());
+        assertEquals(1, result.conflicts().size());
+        ThreeWayMerge.Conflict conflict = result.conflicts().get(0);
+        assertEquals(4, conflict.baseLine());
+        assertEquals("four\n", conflict.base());
+        assertEquals("Four\n", conflict.ours());
+        assertEquals("4\n", conflict.theirs());
+    }
+
+    @Test
+    public void testBothAppendingConflict() {
+        ThreeWayMerge.Result result = ThreeWayMerge.merge(BASE, BASE + "mine\n", BASE + "yours\n");
+
+        assertFalse(result.isClean());
+        assertEquals(7, result.conflicts().get(0).baseLine());
+    }
+
+    @Test
+    public void testLargeDocumentWithScatteredEdits() {
+        Random random = new Random(7);
+        String[] lines = new String[20000];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = "line " + i + " " + random.nextInt() + "\n";
+        }
+        String[] ours = lines.clone();
+        String[] theirs = lines.clone();
+        String[] expected = lines.clone();
+        for (int i = 0; i < lines.length; i += 100) {
+            ours[i] = "ours " + i + "\n";
+            theirs[i + 50] = "theirs " + i + "\n";
+            expected[i] = ours[i];
+            expected[i + 50] = theirs[i + 50];
+        }
+
+        ThreeWayMerge.Result result = ThreeWayMerge.merge(
+            String.join("", lines), String.join("", ours), String.join("", theirs));
+
+        assertTrue(result.isClean());
+        assertEquals(String.join("", expected), result.merged());
+    }
+}
@@ -0,0 +1,56 @@
+package com.pleasenote.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtServiceTest {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret-test-secret";
+
+    @Test
+    public void testParseTokenCachesVerifiedClaims() {
+        JwtService jwtService = new JwtService(SECRET, 60_000, 100);
+        String token = jwtService.generateToken(42L, "alice");
+
+        Claims first = jwtService.parseToken(token);
+        Claims second = jwtService.parseToken(token);
+
+        assertEquals("alice", first.getSubject());
+        assertEquals(42, ((Number) first.get("userId")).intValue());
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testParseTokenRejectsTamperedToken() {
+        JwtService jwtService = new JwtService(SECRET, 60_000, 100);
+        String token = jwtService.generateToken(42L, "alice");
+        jwtService.parseToken(token);
+
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThrows(SignatureException.class, () -> jwtService.parseToken(tampered));
+    }
+
+    @Test
+    public void testCachedClaimsDoNotOutliveToken() throws Exception {
+        JwtService jwtService = new JwtService(SECRET, 1_000, 100);
+        String token = jwtService.generateToken(42L, "alice");
+        jwtService.parseToken(token);
+
+        Thread.sleep(1_500);
+
+        assertThrows(ExpiredJwtException.class, () -> jwtService.parseToken(token));
+    }
+
+    @Test
+    public void testParseTokenWithCacheDisabled() {
+        JwtService jwtService = new JwtService(SECRET, 60_000, 0);
+        String token = jwtService.generateToken(42L, "alice");
+
+        assertEquals("alice", jwtService.parseToken(token).getSubject());
+    }
+}
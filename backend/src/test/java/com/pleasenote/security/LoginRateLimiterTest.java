@@ -0,0 +1,35 @@
+package com.pleasenote.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoginRateLimiterTest {
+
+    @Test
+    public void testRejectsUsernameAfterBurst() {
+        LoginRateLimiter limiter = new LoginRateLimiter(new SimpleMeterRegistry(), 3, 1, 100, 100);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.acquire("alice", "10.0.0.1").isZero());
+        }
+        Duration wait = limiter.acquire("alice", "10.0.0.2");
+
+        assertTrue(wait.compareTo(Duration.ofSeconds(50)) > 0);
+        assertTrue(limiter.acquire("bob", "10.0.0.1").isZero());
+    }
+
+    @Test
+    public void testRejectsAddressAcrossUsernames() {
+        LoginRateLimiter limiter = new LoginRateLimiter(new SimpleMeterRegistry(), 100, 100, 2, 60);
+
+        assertTrue(limiter.acquire("alice", "10.0.0.1").isZero());
+        assertTrue(limiter.acquire(null, "10.0.0.1").isZero());
+
+        assertFalse(limiter.acquire("carol", "10.0.0.1").isZero());
+        assertTrue(limiter.acquire("carol", "10.0.0.2").isZero());
+    }
+}
@@ -0,0 +1,71 @@
+package com.pleasenote.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PasswordHasherTest {
+
+    @Test
+    public void testRehashesHashesBelowConfiguredCost() throws Exception {
+        String weakHash = new BCryptPasswordEncoder(4).encode("password123");
+        PasswordHasher hasher = new PasswordHasher(new BCryptPasswordEncoder(5), new SimpleMeterRegistry(), 1, 4);
+
+        assertTrue(hasher.matches("password123", weakHash));
+        assertTrue(hasher.needsRehash(weakHash));
+
+        CompletableFuture<String> upgraded = new CompletableFuture<>();
+        hasher.rehash("password123", upgraded::complete);
+        String strongHash = upgraded.get(10, TimeUnit.SECONDS);
+
+        assertTrue(hasher.matches("password123", strongHash));
+        assertFalse(hasher.needsRehash(strongHash));
+        hasher.destroy();
+    }
+
+    @Test
+    public void testRejectsWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash";
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return true;
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PasswordHasher hasher = new PasswordHasher(blocking, registry, 1, 1);
+
+        // One running, one queued
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hasher.encode("a"));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> hasher.encode("b"));
+        while (registry.get("executor.queued").gauge().value() < 1) {
+            Thread.sleep(5);
+        }
+
+        assertThrows(RejectedExecutionException.class, () -> hasher.encode("c"));
+        assertEquals(1, registry.get("password.hash.rejected").counter().count());
+
+        release.countDown();
+        assertEquals("hash", running.get(10, TimeUnit.SECONDS));
+        assertEquals("hash", queued.get(10, TimeUnit.SECONDS));
+        hasher.destroy();
+    }
+}
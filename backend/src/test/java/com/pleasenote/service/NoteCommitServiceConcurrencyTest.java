@@ -0,0 +1,129 @@
+package com.pleasenote.service;
+
+import com.pleasenote.model.Note;
+import com.pleasenote.model.User;
+import com.pleasenote.repository.NoteRepository;
+import com.pleasenote.repository.NoteRevisionRepository;
+import com.pleasenote.repository.UserRepository;
+import com.pleasenote.revision.RevisionStore;
+import com.pleasenote.service.NoteCommitService.CommitResult;
+import com.pleasenote.service.NoteCommitService.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hammers one note from many threads through the compare-and-swap commit path.
+ * Not transactional: every commit has to be visible to the other threads.
+ */
+@SpringBootTest
+public class NoteCommitServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int COMMITS_PER_THREAD = 25;
+
+    @Autowired
+    private NoteCommitService commitService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private NoteRevisionRepository revisionRepository;
+
+    @Autowired
+    private RevisionStore revisionStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    public void setup() {
+        user = new User();
+        user.setUsername("contended" + System.currentTimeMillis());
+        user.setEmail("contended" + System.currentTimeMillis() + "@example.com");
+        user.setPasswordHash("unused");
+        user.setCreatedAt(OffsetDateTime.now());
+        user = userRepository.save(user);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        // notes and revisions cascade
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    public void testConcurrentCommitsLoseNoUpdates() throws Exception {
+        long noteId = commitService.create(user.getId(), "Contended", "initial").noteId();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+
+        List<Future<List<String>>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                List<String> committed = new ArrayList<>();
+                for (int c = 0; c < COMMITS_PER_THREAD; c++) {
+                    String content = "thread " + thread + " commit " + c;
+                    while (true) {
+                        Long head = jdbcTemplate.queryForObject(
+                            "SELECT head_revision_id FROM notes WHERE id = ?", Long.class, noteId);
+                        CommitResult result = commitService.commit(noteId, user.getId(), head, null, content);
+                        if (result.status() == Status.COMMITTED) {
+                            committed.add(content);
+                            break;
+                        }
+                        assertEquals(Status.CONFLICT, result.status());
+                    }
+                }
+                return committed;
+            }));
+        }
+
+        start.countDown();
+        Set<String> committed = new HashSet<>();
+        for (Future<List<String>> future : futures) {
+            committed.addAll(future.get());
+        }
+        pool.shutdown();
+
+        int expected = THREADS * COMMITS_PER_THREAD;
+
+        // Every acknowledged commit is exactly one revision, numbered without gaps
+        Note note = noteRepository.findById(noteId).orElseThrow();
+        List<Integer> numbers = jdbcTemplate.queryForList(
+            "SELECT revision_number FROM note_revisions WHERE note_id = ? ORDER BY revision_number",
+            Integer.class, noteId);
+        assertEquals(expected + 1, numbers.size());
+        for (int i = 0; i < numbers.size(); i++) {
+            assertEquals(i + 1, numbers.get(i));
+        }
+        assertEquals(expected + 1, note.getHeadRevisionNumber());
+
+        List<String> stored = revisionStore.readContents(revisionRepository.findByNoteOrderByRevisionNumber(note));
+        assertEquals("initial", stored.get(0));
+        assertEquals(committed, new HashSet<>(stored.subList(1, stored.size())));
+    }
+}
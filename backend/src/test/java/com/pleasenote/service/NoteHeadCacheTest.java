@@ -0,0 +1,84 @@
+package com.pleasenote.service;
+
+import com.pleasenote.service.NoteHeadCache.Head;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NoteHeadCacheTest {
+
+    private static NoteHeadCache cache(NoteHeadChannel channel) {
+        return new NoteHeadCache(new JdbcTemplate(), channel, new SimpleMeterRegistry(), 1 << 20, Duration.ofMinutes(1));
+    }
+
+    private static Head head(long revisionId, int revisionNumber, String content) {
+        return new Head(1L, 7L, "Title", revisionId, revisionNumber, 0, 1, content);
+    }
+
+    @Test
+    public void testOlderCommitDoesNotReplaceNewerHead() {
+        NoteHeadCache cache = cache(new LocalNoteHeadChannel());
+
+        cache.committed(head(11L, 2, "second"));
+        cache.committed(head(10L, 1, "first"));
+
+        assertNull(cache.withContent(1L, 10L));
+        assertEquals("second", cache.withContent(1L, 11L).content());
+    }
+
+    @Test
+    public void testCommitOnOneNodeDropsStaleHeadOnAnother() {
+        NoteHeadChannel channel = new LocalNoteHeadChannel();
+        NoteHeadCache first = cache(channel);
+        NoteHeadCache second = cache(channel);
+        second.committed(head(10L, 1, "first"));
+
+        first.committed(head(11L, 2, "second"));
+
+        assertNull(second.withContent(1L, 10L));
+        assertEquals("second", first.withContent(1L, 11L).content());
+    }
+
+    @Test
+    public void testRewrittenHistoryDropsHeadOnEveryNode() {
+        NoteHeadChannel channel = new LocalNoteHeadChannel();
+        NoteHeadCache first = cache(channel);
+        NoteHeadCache second = cache(channel);
+        first.committed(head(10L, 1, "first"));
+        second.committed(head(10L, 1, "first"));
+
+        channel.publishRewritten(1L);
+
+        assertNull(first.withContent(1L, 10L));
+        assertNull(second.withContent(1L, 10L));
+    }
+
+    @Test
+    public void testContentOnlyAttachesToCurrentHead() {
+        NoteHeadCache cache = cache(new LocalNoteHeadChannel());
+        cache.committed(new Head(1L, 7L, "Title", 11L, 2, 0, 0, null));
+
+        cache.putContent(1L, 10L, 1, "stale");
+        assertNull(cache.withContent(1L, 11L));
+
+        cache.putContent(1L, 11L, 1, "current");
+        assertEquals("current", cache.withContent(1L, 11L).content());
+    }
+
+    @Test
+    public void testHeadCommittedWithoutContentIsKnown() {
+        NoteHeadCache cache = cache(new LocalNoteHeadChannel());
+        cache.committed(head(10L, 1, null));
+
+        Head head = cache.withContent(1L, 10L);
+        assertNotNull(head);
+        assertNull(head.content());
+
+        cache.putContent(1L, 10L, 1, "rebuilt");
+        assertNull(cache.withContent(1L, 10L).content());
+    }
+}
@@ -0,0 +1,57 @@
+package com.pleasenote.benchmark;
+
+import com.pleasenote.config.PasswordEncoderConfig;
+import com.pleasenote.security.JwtService;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT generation/verification and password hashing as configured for /auth.
+ * Parsing here bypasses the verified-claims cache; see {@link JwtFilterBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthBenchmark {
+
+    private JwtService jwtService;
+    private String token;
+    private PasswordEncoder passwordEncoder;
+    private String passwordHash;
+
+    @Setup
+    public void setup() {
+        jwtService = new JwtService("benchmark-secret-benchmark-secret-benchmark-secret", 3_600_000, 0);
+        token = jwtService.generateToken(1L, "bench");
+        passwordEncoder = new PasswordEncoderConfig().passwordEncoder(PasswordEncoderConfig.DEFAULT_BCRYPT_STRENGTH);
+        passwordHash = passwordEncoder.encode("password123");
+    }
+
+    @Benchmark
+    public String jwtGenerate() {
+        return jwtService.generateToken(1L, "bench");
+    }
+
+    @Benchmark
+    public Claims jwtParse() {
+        return jwtService.parseToken(token);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String passwordEncode() {
+        return passwordEncoder.encode("password123");
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean passwordMatches() {
+        return passwordEncoder.matches("password123", passwordHash);
+    }
+}
@@ -0,0 +1,106 @@
+package com.pleasenote.benchmark;
+
+import com.pleasenote.PleaseNoteApplication;
+import com.pleasenote.model.User;
+import com.pleasenote.repository.UserRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The backend application context against a throwaway Postgres.
+ *
+ * By default an embedded Postgres is started in the benchmark fork; pass
+ * {@code -Dbench.jdbc-url=jdbc:postgresql://localhost:5432/pleasenote} (plus
+ * {@code bench.jdbc-user}/{@code bench.jdbc-password}) to run against the
+ * compose database instead. The schema is migrated with the backend's Flyway
+ * scripts before the context starts.
+ */
+@State(Scope.Benchmark)
+public class BackendState {
+
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext context;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        start(List.of());
+    }
+
+    /**
+     * Starts the backend with additional {@code key=value} application properties.
+     */
+    public void start(List<String> extraProperties) throws IOException {
+        String url = System.getProperty("bench.jdbc-url");
+        String username = System.getProperty("bench.jdbc-user", "pleasenote");
+        String password = System.getProperty("bench.jdbc-password", "pleasenote");
+        if (url == null) {
+            postgres = EmbeddedPostgres.start();
+            url = postgres.getJdbcUrl("postgres", "postgres");
+            username = "postgres";
+            password = "postgres";
+        }
+
+        Flyway.configure()
+            .dataSource(url, username, password)
+            .locations("classpath:db/migration")
+            .load()
+            .migrate();
+
+        List<String> properties = new ArrayList<>(List.of(
+            "spring.datasource.url=" + url,
+            "spring.datasource.username=" + username,
+            "spring.datasource.password=" + password,
+            "jwt.secret=benchmark-secret-benchmark-secret-benchmark-secret",
+            "jwt.expiration-ms=3600000",
+            "server.port=0",
+            "logging.level.root=WARN"
+        ));
+        properties.addAll(extraProperties);
+        context = new SpringApplicationBuilder(PleaseNoteApplication.class)
+            .properties(properties.toArray(String[]::new))
+            .run();
+
+        User owner = new User();
+        owner.setUsername("bench" + System.nanoTime());
+        owner.setEmail(owner.getUsername() + "@example.com");
+        owner.setPasswordHash("unused");
+        owner.setCreatedAt(OffsetDateTime.now());
+        user = bean(UserRepository.class).save(owner);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        if (user != null) {
+            bean(UserRepository.class).deleteById(user.getId());
+        }
+        context.close();
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public User user() {
+        return user;
+    }
+
+    public int port() {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+}
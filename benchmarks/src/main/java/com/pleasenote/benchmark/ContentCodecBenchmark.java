@@ -0,0 +1,78 @@
+package com.pleasenote.benchmark;
+
+import com.pleasenote.revision.ContentCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost of revision bodies, and the size they are stored in.
+ *
+ * Bodies are prose-like text drawn from a fixed vocabulary. A threshold above
+ * the body size stores it raw, which is the pre-compression baseline. Stored
+ * size and the resulting throughput are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContentCodecBenchmark {
+
+    @Param({"4", "64", "1024"})
+    public int noteSizeKb;
+
+    @Param({"1", "3", "9"})
+    public int level;
+
+    @Param({"true", "false"})
+    public boolean compress;
+
+    private ContentCodec codec;
+    private String content;
+    private byte[] body;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        codec = new ContentCodec(compress ? ContentCodec.DEFAULT_THRESHOLD : Integer.MAX_VALUE, level);
+
+        Random random = new Random(7);
+        String[] words = new String[2000];
+        for (int i = 0; i < words.length; i++) {
+            StringBuilder word = new StringBuilder();
+            int length = 2 + random.nextInt(8);
+            for (int c = 0; c < length; c++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            words[i] = word.toString();
+        }
+        StringBuilder text = new StringBuilder();
+        while (text.length() < noteSizeKb * 1024) {
+            int sentence = 5 + random.nextInt(15);
+            for (int w = 0; w < sentence; w++) {
+                // Skewed towards the first words, as in natural text
+                text.append(words[(int) (words.length * Math.pow(random.nextDouble(), 3))]).append(' ');
+            }
+            text.append(random.nextInt(8) == 0 ? ".\n" : ". ");
+        }
+        content = text.toString();
+        body = codec.encode(content);
+
+        int raw = content.getBytes(StandardCharsets.UTF_8).length;
+        System.out.printf("%nnoteSizeKb=%d level=%d compress=%b: %,d bytes stored in %,d (%.2fx)%n",
+            noteSizeKb, level, compress, raw, body.length, (double) raw / body.length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return codec.encode(content);
+    }
+
+    @Benchmark
+    public String decode() {
+        return ContentCodec.decode(body);
+    }
+}
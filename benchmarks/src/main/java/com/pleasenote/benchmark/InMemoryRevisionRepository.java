@@ -0,0 +1,48 @@
+package com.pleasenote.benchmark;
+
+import com.pleasenote.model.Note;
+import com.pleasenote.model.NoteRevision;
+import com.pleasenote.repository.NoteRevisionRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link NoteRevisionRepository} backed by a list, implementing only the calls
+ * {@link com.pleasenote.revision.RevisionStore} makes, so storage benchmarks run
+ * the real encode/reconstruct code without a database.
+ */
+final class InMemoryRevisionRepository {
+
+    private InMemoryRevisionRepository() {
+    }
+
+    static NoteRevisionRepository create(List<NoteRevision> rows) {
+        return (NoteRevisionRepository) Proxy.newProxyInstance(
+            NoteRevisionRepository.class.getClassLoader(),
+            new Class<?>[] {NoteRevisionRepository.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "save" -> {
+                    NoteRevision revision = (NoteRevision) args[0];
+                    revision.setId((long) rows.size() + 1);
+                    rows.add(revision);
+                    yield revision;
+                }
+                case "findByNoteAndRevisionNumberBetweenOrderByRevisionNumber" -> {
+                    Note note = (Note) args[0];
+                    int from = (int) args[1];
+                    int to = (int) args[2];
+                    List<NoteRevision> result = new ArrayList<>();
+                    for (NoteRevision r : rows) {
+                        if (r.getNote() == note && r.getRevisionNumber() >= from && r.getRevisionNumber() <= to) {
+                            result.add(r);
+                        }
+                    }
+                    yield result;
+                }
+                case "toString" -> "InMemoryRevisionRepository";
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+    }
+}
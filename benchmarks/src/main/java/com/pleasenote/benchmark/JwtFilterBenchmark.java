@@ -0,0 +1,80 @@
+package com.pleasenote.benchmark;
+
+import com.pleasenote.metrics.StageTimers;
+import com.pleasenote.model.User;
+import com.pleasenote.repository.UserRepository;
+import com.pleasenote.security.JwtAuthenticationFilter;
+import com.pleasenote.security.JwtService;
+import com.pleasenote.security.UserCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link JwtAuthenticationFilter} for a client resending the same
+ * token, with the verified-claims cache disabled (0) and enabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+
+    @Param({"0", "10000"})
+    public long claimsCacheSize;
+
+    private JwtAuthenticationFilter filter;
+    private String token;
+
+    @Setup
+    public void setup() {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("bench");
+        UserRepository users = (UserRepository) Proxy.newProxyInstance(
+            UserRepository.class.getClassLoader(),
+            new Class<?>[] {UserRepository.class},
+            (proxy, method, args) -> Optional.of(user));
+
+        JwtService jwtService = new JwtService(SECRET, 3_600_000, claimsCacheSize);
+        UserCache userCache = new UserCache(users, new SimpleMeterRegistry(), 10_000, Duration.ofMinutes(5));
+        filter = new JwtAuthenticationFilter(jwtService, userCache,
+            new StageTimers(new SimpleMeterRegistry(), Duration.ofMillis(500)));
+        token = jwtService.generateToken(user.getId(), user.getUsername());
+    }
+
+    @State(Scope.Thread)
+    public static class Exchange {
+        MockHttpServletRequest request;
+        MockHttpServletResponse response;
+        final FilterChain chain = (req, res) -> { };
+
+        @Setup
+        public void setup(JwtFilterBenchmark benchmark) {
+            request = new MockHttpServletRequest("GET", "/notes/1/revisions");
+            request.addHeader("Authorization", "Bearer " + benchmark.token);
+            response = new MockHttpServletResponse();
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object authenticate(Exchange exchange) throws Exception {
+        filter.doFilter(exchange.request, exchange.response, exchange.chain);
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SecurityContextHolder.clearContext();
+        return principal;
+    }
+}
@@ -0,0 +1,207 @@
+package com.pleasenote.benchmark;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load test comparing platform-thread and virtual-thread request
+ * execution ({@code spring.threads.virtual.enabled}).
+ *
+ * Each of {@code load.clients} clients keeps one request in flight, pausing
+ * {@code load.think-ms} between requests: mostly note listings and updates of its
+ * own note, with a BCrypt login every {@code load.login-every} requests. Clients
+ * are asynchronous, so the harness itself needs no thread per connection. After
+ * {@code load.warmup} the run records every latency for {@code load.duration} and
+ * prints throughput, p50/p99/p99.9/max and the server's peak thread count.
+ *
+ * Client and server share the JVM; virtual mode needs a Java 21+ runtime.
+ */
+public final class LoadTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final int clients = Integer.getInteger("load.clients", 2000);
+    private final long thinkMs = Long.getLong("load.think-ms", 0);
+    private final int loginEvery = Integer.getInteger("load.login-every", 20);
+    private final Duration warmup = Duration.parse("PT" + System.getProperty("load.warmup", "10s"));
+    private final Duration duration = Duration.parse("PT" + System.getProperty("load.duration", "30s"));
+
+    public static void main(String[] args) throws Exception {
+        if (Runtime.version().feature() < 21) {
+            System.out.println("Java " + Runtime.version() + " has no virtual threads; virtual mode will run on platform threads");
+        }
+        LoadTest test = new LoadTest();
+        for (String mode : System.getProperty("load.modes", "platform,virtual").split(",")) {
+            BackendState backend = new BackendState();
+            backend.start(List.of(
+                "spring.threads.virtual.enabled=" + mode.trim().equals("virtual"),
+                "server.tomcat.max-connections=" + Math.max(8192, test.clients * 2),
+                // every client logs in as the same user from the same address
+                "security.login.username-burst=" + Integer.MAX_VALUE,
+                "security.login.address-burst=" + Integer.MAX_VALUE
+            ));
+            try {
+                test.run(mode.trim(), backend.port());
+            } finally {
+                backend.stop();
+            }
+        }
+        System.exit(0);
+    }
+
+    private void run(String mode, int port) throws Exception {
+        HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+        String base = "http://localhost:" + port;
+        String username = "load" + System.nanoTime();
+        String credentials = JSON.writeValueAsString(java.util.Map.of(
+            "username", username, "email", username + "@example.com", "password", "load-test-password"));
+        String token = JSON.readTree(send(http, post(base + "/auth/register", null, credentials)).body())
+            .get("accessToken").asString();
+
+        List<Client> all = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            all.add(new Client(http, base, token, credentials));
+        }
+        CompletableFuture.allOf(all.stream().map(Client::createNote).toArray(CompletableFuture[]::new)).join();
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        CountDownLatch done = new CountDownLatch(clients);
+        for (Client client : all) {
+            client.loop(measureFrom, end, done);
+        }
+        TimeUnit.NANOSECONDS.sleep(warmup.toNanos());
+        threads.resetPeakThreadCount();
+        done.await();
+
+        long[] latencies = all.stream().flatMapToLong(c -> Arrays.stream(c.latencies, 0, c.count)).sorted().toArray();
+        long errors = all.stream().mapToLong(c -> c.errors.get()).sum();
+        System.out.printf("%n%-8s clients=%d think=%dms requests=%d errors=%d throughput=%.0f req/s "
+                + "p50=%.1fms p99=%.1fms p99.9=%.1fms max=%.1fms peakThreads=%d%n",
+            mode, clients, thinkMs, latencies.length, errors, latencies.length / (duration.toNanos() / 1e9),
+            percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+            percentile(latencies, 1.0), threads.getPeakThreadCount());
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static HttpRequest post(String uri, String token, String body) {
+        return request(uri, token).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private static HttpRequest.Builder request(String uri, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(uri))
+            .header("Content-Type", "application/json")
+            .timeout(Duration.ofMinutes(2));
+        return token == null ? builder : builder.header("Authorization", "Bearer " + token);
+    }
+
+    private static HttpResponse<String> send(HttpClient http, HttpRequest request) throws Exception {
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException(request.uri() + " returned " + response.statusCode());
+        }
+        return response;
+    }
+
+    private final class Client {
+        final HttpClient http;
+        final String base;
+        final String token;
+        final String credentials;
+        final Executor pause = thinkMs > 0
+            ? CompletableFuture.delayedExecutor(thinkMs, TimeUnit.MILLISECONDS)
+            : Runnable::run;
+        final AtomicLong errors = new AtomicLong();
+        long[] latencies = new long[1024];
+        int count;
+        long noteId;
+        long revisionId;
+        int requests;
+
+        Client(HttpClient http, String base, String token, String credentials) {
+            this.http = http;
+            this.base = base;
+            this.token = token;
+            this.credentials = credentials;
+        }
+
+        CompletableFuture<?> createNote() {
+            return http.sendAsync(post(base + "/notes", token, "{\"title\":\"Load\",\"content\":\"Start\"}"),
+                    HttpResponse.BodyHandlers.ofString())
+                .thenAccept(response -> {
+                    JsonNode created = JSON.readTree(response.body());
+                    noteId = created.get("noteId").asLong();
+                    revisionId = created.get("revisionId").asLong();
+                });
+        }
+
+        void loop(long measureFrom, long end, CountDownLatch done) {
+            long sent = System.nanoTime();
+            if (sent >= end) {
+                done.countDown();
+                return;
+            }
+            boolean update = false;
+            HttpRequest request;
+            if (++requests % loginEvery == 0) {
+                request = post(base + "/auth/login", null, credentials);
+            } else if (requests % 2 == 0) {
+                update = true;
+                request = request(base + "/notes/" + noteId, token)
+                    .PUT(HttpRequest.BodyPublishers.ofString(
+                        "{\"lastRevisionId\":" + revisionId + ",\"content\":\"Edit " + requests + "\"}"))
+                    .build();
+            } else {
+                request = request(base + "/notes?limit=20", token).GET().build();
+            }
+            boolean isUpdate = update;
+            http.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, failure) -> {
+                long finished = System.nanoTime();
+                if (failure != null || response.statusCode() >= 300) {
+                    errors.incrementAndGet();
+                } else if (isUpdate) {
+                    revisionId = JSON.readTree(response.body()).get("revisionId").asLong();
+                }
+                if (sent >= measureFrom && finished <= end) {
+                    record(finished - sent);
+                }
+                pause.execute(() -> loop(measureFrom, end, done));
+            });
+        }
+
+        void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.pleasenote.benchmark;
+
+import com.pleasenote.revision.ThreeWayMerge;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Three-way merge of two sides that each edited a multi-megabyte note.
+ *
+ * Each side replaces or inserts {@code editsPerSide} random lines; with
+ * {@code sameLine} every edit of "theirs" also rewrites a different part of a
+ * line "ours" edited, so those regions take the character-level fallback.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MergeBenchmark {
+
+    @Param({"1024", "4096"})
+    public int noteSizeKb;
+
+    @Param({"10", "1000"})
+    public int editsPerSide;
+
+    @Param({"false", "true"})
+    public boolean sameLine;
+
+    private String base;
+    private String ours;
+    private String theirs;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(7);
+        List<String> lines = new ArrayList<>();
+        int size = 0;
+        while (size < noteSizeKb * 1024) {
+            String line = randomLine(random);
+            lines.add(line);
+            size += line.length() + 1;
+        }
+        List<String> ourLines = new ArrayList<>(lines);
+        List<String> theirLines = new ArrayList<>(lines);
+        // Edit disjoint, well separated lines so the merge is clean
+        int stride = lines.size() / editsPerSide;
+        for (int i = editsPerSide - 1; i >= 0; i--) {
+            int at = i * stride;
+            ourLines.set(at, "ours " + lines.get(at));
+            if (sameLine) {
+                theirLines.set(at, lines.get(at) + " theirs");
+            } else {
+                theirLines.add(at + stride / 2, randomLine(random));
+            }
+        }
+        base = String.join("\n", lines);
+        ours = String.join("\n", ourLines);
+        theirs = String.join("\n", theirLines);
+
+        if (!ThreeWayMerge.merge(base, ours, theirs).isClean()) {
+            throw new IllegalStateException("benchmark merge is expected to be clean");
+        }
+    }
+
+    private static String randomLine(Random random) {
+        StringBuilder line = new StringBuilder();
+        int words = 4 + random.nextInt(12);
+        for (int w = 0; w < words; w++) {
+            int length = 2 + random.nextInt(8);
+            for (int c = 0; c < length; c++) {
+                line.append((char) ('a' + random.nextInt(26)));
+            }
+            line.append(' ');
+        }
+        return line.toString();
+    }
+
+    @Benchmark
+    public ThreeWayMerge.Result merge() {
+        return ThreeWayMerge.merge(base, ours, theirs);
+    }
+}
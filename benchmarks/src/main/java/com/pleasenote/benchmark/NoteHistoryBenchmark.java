@@ -0,0 +1,65 @@
+package com.pleasenote.benchmark;
+
+import com.pleasenote.model.Note;
+import com.pleasenote.repository.NoteRepository;
+import com.pleasenote.revision.RevisionHistory;
+import com.pleasenote.service.NoteCommitService;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Revision history reads as getRevisions serves them: fetched in keyset batches
+ * and serialized to JSON, with and without content.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoteHistoryBenchmark {
+
+    @Param({"10", "200"})
+    public int revisions;
+
+    @Param({"10"})
+    public int contentKb;
+
+    private RevisionHistory history;
+    private ObjectMapper objectMapper;
+    private Note note;
+
+    @Setup(Level.Trial)
+    public void setup(BackendState backend) {
+        history = backend.bean(RevisionHistory.class);
+        objectMapper = backend.bean(ObjectMapper.class);
+        NoteCommitService commitService = backend.bean(NoteCommitService.class);
+
+        long userId = backend.user().getId();
+        StringBuilder content = new StringBuilder("A line of benchmark note content.\n".repeat(contentKb * 1024 / 34 + 1));
+        var head = commitService.create(userId, "History benchmark", content.toString());
+        for (int i = 1; i < revisions; i++) {
+            content.append("Edit ").append(i).append('\n');
+            head = commitService.commit(head.noteId(), userId, head.revisionId(), null, content.toString());
+        }
+        note = backend.bean(NoteRepository.class).findById(head.noteId()).orElseThrow();
+    }
+
+    @Benchmark
+    public void fullHistory() {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), history.all(note, 0, false));
+    }
+
+    @Benchmark
+    public void summaryHistory() {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), history.all(note, 0, true));
+    }
+
+    @Benchmark
+    public void firstPage() {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), history.page(note, 0, 50, false));
+    }
+}
@@ -0,0 +1,82 @@
+package com.pleasenote.benchmark;
+
+import com.pleasenote.service.NoteSearchService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ranked search over a generated corpus of {@code notes × revisionsPerNote}
+ * revisions (1M by default). Bodies are random words drawn from a skewed
+ * vocabulary, so {@code w0} occurs in most notes and {@code w4000} in few; only
+ * each note's head is indexed, as the commit path maintains it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoteSearchBenchmark {
+
+    @Param({"50000"})
+    public int notes;
+
+    @Param({"20"})
+    public int revisionsPerNote;
+
+    @Param({"w0", "w4000", "w3 w40", "\"w1 w2\""})
+    public String query;
+
+    private NoteSearchService searchService;
+    private long userId;
+
+    @Setup(Level.Trial)
+    public void setup(BackendState backend) {
+        searchService = backend.bean(NoteSearchService.class);
+        userId = backend.user().getId();
+        JdbcTemplate jdbc = backend.bean(JdbcTemplate.class);
+
+        long started = System.nanoTime();
+        jdbc.update("""
+            INSERT INTO notes (user_id, title, created_at, updated_at, head_revision_id, head_revision_number)
+            SELECT ?, 'Note ' || n, now(), now(), 0, 0 FROM generate_series(1, ?) AS n
+            """, userId, notes);
+        jdbc.update("""
+            INSERT INTO note_revisions (note_id, content, base_revision_number, revision_number, created_at)
+            SELECT n.id, words.body, r, r, now()
+            FROM notes n
+            CROSS JOIN generate_series(1, ?) AS r
+            CROSS JOIN LATERAL (
+                SELECT string_agg('w' || floor(5000 * power(random(), 3))::int, ' ') AS body
+                FROM generate_series(1, 40) AS w
+                WHERE w > r * 0 + n.id * 0
+            ) AS words
+            WHERE n.user_id = ?
+            """, revisionsPerNote, userId);
+        jdbc.update("""
+            UPDATE notes n
+            SET head_revision_id = r.id,
+                head_revision_number = r.revision_number,
+                search_vector = setweight(to_tsvector(CAST(? AS regconfig), n.title), 'A')
+                    || setweight(to_tsvector(CAST(? AS regconfig), r.content), 'B')
+            FROM note_revisions r
+            WHERE r.note_id = n.id AND r.revision_number = ? AND n.user_id = ?
+            """, searchService.language(), searchService.language(), revisionsPerNote, userId);
+        jdbc.execute("ANALYZE notes");
+        jdbc.execute("ANALYZE note_revisions");
+        System.out.printf("%nGenerated %d revisions in %d s%n",
+            (long) notes * revisionsPerNote, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started));
+    }
+
+    @Benchmark
+    public Object firstPage() {
+        return searchService.search(userId, query, 20, 0);
+    }
+
+    @Benchmark
+    public Object deepPage() {
+        return searchService.search(userId, query, 20, 1000);
+    }
+}
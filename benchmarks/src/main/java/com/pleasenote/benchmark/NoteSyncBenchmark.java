@@ -0,0 +1,70 @@
+package com.pleasenote.benchmark;
+
+import com.pleasenote.service.NoteCommitService;
+import com.pleasenote.service.NoteCommitService.CommitResult;
+import com.pleasenote.service.NoteSyncService;
+import com.pleasenote.service.NoteSyncService.SyncItem;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A reconnecting client pushing one edit to each of {@code batchSize} notes,
+ * either as one sync batch or as sequential commits.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoteSyncBenchmark {
+
+    @Param({"10", "100"})
+    public int batchSize;
+
+    @Param({"1"})
+    public int contentKb;
+
+    private NoteCommitService commitService;
+    private NoteSyncService syncService;
+    private long userId;
+    private String content;
+    private CommitResult[] heads;
+    private int edits;
+
+    @Setup(Level.Trial)
+    public void setup(BackendState backend) {
+        commitService = backend.bean(NoteCommitService.class);
+        syncService = backend.bean(NoteSyncService.class);
+        userId = backend.user().getId();
+        content = "A line of benchmark note content.\n".repeat(contentKb * 1024 / 34 + 1);
+        heads = new CommitResult[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            heads[i] = commitService.create(userId, "Sync note " + i, content);
+        }
+    }
+
+    @Benchmark
+    public List<CommitResult> syncBatch() {
+        String edited = content + "Edit " + (++edits) + "\n";
+        List<SyncItem> items = new ArrayList<>(batchSize);
+        for (CommitResult head : heads) {
+            items.add(new SyncItem(head.noteId(), head.revisionId(), null, edited));
+        }
+        List<CommitResult> results = syncService.sync(userId, items);
+        results.toArray(heads);
+        return results;
+    }
+
+    @Benchmark
+    public CommitResult[] sequentialCommits() {
+        String edited = content + "Edit " + (++edits) + "\n";
+        for (int i = 0; i < batchSize; i++) {
+            heads[i] = commitService.commit(heads[i].noteId(), userId, heads[i].revisionId(), null, edited);
+        }
+        return heads;
+    }
+}
@@ -0,0 +1,89 @@
+package com.pleasenote.benchmark;
+
+import com.pleasenote.security.JwtService;
+import com.pleasenote.service.NoteCommitService;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code PUT /notes/{id}} over HTTP with the content in a JSON body and as a
+ * raw {@code text/plain} body. Run with {@code -prof gc}: {@code gc.alloc.rate.norm}
+ * is the bytes allocated per update across the whole JVM, server and client.
+ * Updates alternate between two bodies, so every one commits a revision.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoteUpdateAllocationBenchmark {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    @Param({"1", "100", "10240"})
+    public int contentKb;
+
+    @Param({"json", "text"})
+    public String format;
+
+    private HttpClient http;
+    private String base;
+    private String token;
+    private long noteId;
+    private long headRevisionId;
+    private byte[][] bodies;
+    private int edits;
+
+    @Setup(Level.Trial)
+    public void setup(BackendState backend) {
+        String content = "A line of benchmark note content.\n".repeat(contentKb * 1024 / 34 + 1);
+        String[] contents = {content + "Edit\n", content};
+        bodies = new byte[2][];
+        for (int i = 0; i < 2; i++) {
+            bodies[i] = format.equals("json")
+                ? JSON.writeValueAsBytes(contents[i])
+                : contents[i].getBytes(StandardCharsets.UTF_8);
+        }
+
+        NoteCommitService.CommitResult created = backend.bean(NoteCommitService.class)
+            .create(backend.user().getId(), "Benchmark note", content);
+        noteId = created.noteId();
+        headRevisionId = created.revisionId();
+        token = backend.bean(JwtService.class).generateToken(backend.user().getId(), backend.user().getUsername());
+        base = "http://localhost:" + backend.port() + "/notes/" + noteId;
+        http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @Benchmark
+    public long updateNote() throws Exception {
+        byte[] body = bodies[edits++ % 2];
+        HttpRequest.Builder request = HttpRequest.newBuilder().header("Authorization", "Bearer " + token);
+        if (format.equals("json")) {
+            request.uri(URI.create(base))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.concat(
+                    HttpRequest.BodyPublishers.ofString("{\"lastRevisionId\":" + headRevisionId + ",\"content\":"),
+                    HttpRequest.BodyPublishers.ofByteArray(body),
+                    HttpRequest.BodyPublishers.ofString("}")));
+        } else {
+            request.uri(URI.create(base + "?lastRevisionId=" + headRevisionId))
+                .header("Content-Type", "text/plain")
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(body));
+        }
+
+        HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected " + response.statusCode() + ": " + response.body());
+        }
+        headRevisionId = JSON.readTree(response.body()).get("revisionId").asLong();
+        return headRevisionId;
+    }
+}
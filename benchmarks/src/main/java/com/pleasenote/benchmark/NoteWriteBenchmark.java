@@ -0,0 +1,64 @@
+package com.pleasenote.benchmark;
+
+import com.pleasenote.service.NoteCommitService;
+import com.pleasenote.service.NoteCommitService.CommitResult;
+import com.pleasenote.service.NoteCommitService.Status;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Note creation and updateNote commits through {@link NoteCommitService}.
+ * Each thread commits to its own note, so there are no conflicts.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoteWriteBenchmark {
+
+    @State(Scope.Thread)
+    public static class NoteHead {
+
+        @Param({"1", "100"})
+        public int contentKb;
+
+        NoteCommitService commitService;
+        long userId;
+        long noteId;
+        long headRevisionId;
+        String content;
+        int edits;
+
+        @Setup(Level.Trial)
+        public void setup(BackendState backend) {
+            commitService = backend.bean(NoteCommitService.class);
+            userId = backend.user().getId();
+            content = "A line of benchmark note content.\n".repeat(contentKb * 1024 / 34 + 1);
+            CommitResult created = commitService.create(userId, "Benchmark note", content);
+            noteId = created.noteId();
+            headRevisionId = created.revisionId();
+        }
+
+        String nextContent() {
+            return content + "Edit " + (++edits) + "\n";
+        }
+    }
+
+    @Benchmark
+    public CommitResult createNote(NoteHead head) {
+        return head.commitService.create(head.userId, "Benchmark note", head.content);
+    }
+
+    @Benchmark
+    public CommitResult updateNote(NoteHead head) {
+        CommitResult result = head.commitService.commit(
+            head.noteId, head.userId, head.headRevisionId, null, head.nextContent());
+        if (result.status() != Status.COMMITTED) {
+            throw new IllegalStateException("Unexpected " + result.status());
+        }
+        head.headRevisionId = result.revisionId();
+        return result;
+    }
+}
@@ -0,0 +1,93 @@
+package com.pleasenote.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates {@code notes × revisionsPerNote} revisions for one user straight in
+ * SQL, for benchmarks and for loading a database to look at plans at scale.
+ * Every revision is a short plain-text snapshot, so the generated rows read
+ * back through the application like any other.
+ *
+ * As a tool it fills the database named by {@code bench.jdbc-url} (migrated
+ * by the backend beforehand) with {@code corpus.notes} notes (default 100000)
+ * of {@code corpus.revisions-per-note} revisions (default 100):
+ * {@code ../backend/mvnw package exec:exec@revision-corpus -Dcorpus.args="-Dcorpus.notes=1000000"}
+ */
+public final class RevisionCorpus {
+
+    /**
+     * The generated notes are {@code firstNoteId} to {@code lastNoteId}, each with
+     * {@code revisionsPerNote} revisions; {@code headRevisionIds[i]} is the head of
+     * note {@code firstNoteId + i}.
+     */
+    public record Generated(long firstNoteId, long lastNoteId, long[] headRevisionIds) {
+    }
+
+    private RevisionCorpus() {
+    }
+
+    public static void main(String[] args) {
+        String url = System.getProperty("bench.jdbc-url");
+        if (url == null) {
+            throw new IllegalArgumentException("Set -Dbench.jdbc-url to the database to fill");
+        }
+        JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource(url,
+            System.getProperty("bench.jdbc-user", "pleasenote"),
+            System.getProperty("bench.jdbc-password", "pleasenote")));
+        String username = "corpus" + System.nanoTime();
+        long userId = jdbc.queryForObject(
+            "INSERT INTO users (username, email, password_hash) VALUES (?, ?, 'unused') RETURNING id",
+            Long.class, username, username + "@example.com");
+        generate(jdbc, userId, Integer.getInteger("corpus.notes", 100_000),
+            Integer.getInteger("corpus.revisions-per-note", 100));
+    }
+
+    public static Generated generate(JdbcTemplate jdbc, long userId, int notes, int revisionsPerNote) {
+        long started = System.nanoTime();
+        jdbc.update("""
+            INSERT INTO notes (user_id, title, created_at, updated_at, head_revision_id, head_revision_number)
+            SELECT ?, 'Note ' || n, now(), now(), 0, 0 FROM generate_series(1, ?) AS n
+            """, userId, notes);
+        jdbc.update("""
+            INSERT INTO note_revisions (note_id, content, base_revision_number, revision_number, created_at)
+            SELECT n.id, 'Revision ' || r || ' of note ' || n.id, r, r, now() - (? - r) * interval '1 minute'
+            FROM notes n
+            CROSS JOIN generate_series(1, ?) AS r
+            WHERE n.user_id = ?
+            ORDER BY n.id, r
+            """, revisionsPerNote, revisionsPerNote, userId);
+        jdbc.update("""
+            UPDATE notes n
+            SET head_revision_id = r.id, head_revision_number = r.revision_number
+            FROM note_revisions r
+            WHERE r.note_id = n.id AND r.revision_number = ? AND n.user_id = ?
+            """, revisionsPerNote, userId);
+        jdbc.execute("ANALYZE notes");
+        jdbc.execute("ANALYZE note_revisions");
+
+        long[] heads = jdbc.queryForList("SELECT head_revision_id FROM notes WHERE user_id = ? ORDER BY id",
+            Long.class, userId).stream().mapToLong(Long::longValue).toArray();
+        long first = jdbc.queryForObject("SELECT min(id) FROM notes WHERE user_id = ?", Long.class, userId);
+        System.out.printf("%nGenerated %d revisions of %d notes in %d s%n", (long) notes * revisionsPerNote, notes,
+            TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started));
+        return new Generated(first, first + notes - 1, heads);
+    }
+
+    /**
+     * Copies {@code note_revisions} into {@code note_revisions_unpartitioned}, one
+     * table with the keys and indexes {@code note_revisions} had before V14.
+     */
+    public static void copyUnpartitioned(JdbcTemplate jdbc) {
+        jdbc.execute("DROP TABLE IF EXISTS note_revisions_unpartitioned");
+        jdbc.execute("CREATE TABLE note_revisions_unpartitioned (LIKE note_revisions INCLUDING DEFAULTS)");
+        jdbc.execute("INSERT INTO note_revisions_unpartitioned SELECT * FROM note_revisions ORDER BY note_id, id");
+        jdbc.execute("ALTER TABLE note_revisions_unpartitioned ADD PRIMARY KEY (id)");
+        jdbc.execute("ALTER TABLE note_revisions_unpartitioned ADD UNIQUE (note_id, revision_number)");
+        jdbc.execute("CREATE INDEX ON note_revisions_unpartitioned (note_id)");
+        jdbc.execute("CREATE INDEX ON note_revisions_unpartitioned (blob_hash)");
+        jdbc.execute("ANALYZE note_revisions_unpartitioned");
+    }
+}
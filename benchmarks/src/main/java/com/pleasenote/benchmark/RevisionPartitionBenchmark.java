@@ -0,0 +1,100 @@
+package com.pleasenote.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-note revision queries of a random note over a generated corpus
+ * ({@link RevisionCorpus}, 2M revisions by default), against the hash-partitioned
+ * {@code note_revisions} and against a copy laid out as one table with the
+ * indexes it had before V14. The statements are the ones Hibernate issues for
+ * {@link com.pleasenote.repository.NoteRevisionRepository}: latest revision,
+ * a history page, a revision by note and id, and a revision's delta chain.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RevisionPartitionBenchmark {
+
+    @Param({"20000"})
+    public int notes;
+
+    @Param({"100"})
+    public int revisionsPerNote;
+
+    @Param({"partitioned", "unpartitioned"})
+    public String layout;
+
+    private BackendState backend;
+    private JdbcTemplate jdbc;
+    private RevisionCorpus.Generated corpus;
+    private String latestSql;
+    private String pageSql;
+    private String byIdSql;
+    private String chainSql;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        backend = new BackendState();
+        // the generated snapshots are plain text; keep the backfill from rewriting them mid-run
+        backend.start(List.of("revisions.compression.backfill.enabled=false"));
+        jdbc = backend.bean(JdbcTemplate.class);
+        corpus = RevisionCorpus.generate(jdbc, backend.user().getId(), notes, revisionsPerNote);
+
+        String table = "note_revisions";
+        if (layout.equals("unpartitioned")) {
+            RevisionCorpus.copyUnpartitioned(jdbc);
+            table = "note_revisions_unpartitioned";
+        }
+        latestSql = "SELECT id, revision_number, content FROM " + table
+            + " WHERE note_id = ? ORDER BY revision_number DESC LIMIT 1";
+        pageSql = "SELECT id, revision_number, created_at FROM " + table
+            + " WHERE note_id = ? AND revision_number > ? ORDER BY revision_number LIMIT 50";
+        byIdSql = "SELECT id, revision_number, content FROM " + table + " WHERE note_id = ? AND id = ?";
+        chainSql = "SELECT head.id, r.id, r.revision_number, r.content FROM " + table + " head JOIN " + table
+            + " r ON r.note_id = head.note_id AND r.revision_number BETWEEN head.base_revision_number"
+            + " AND head.revision_number WHERE head.note_id IN (?) AND r.note_id IN (?) AND head.id IN (?)"
+            + " ORDER BY head.id, r.revision_number";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        backend.stop();
+    }
+
+    private int randomNote() {
+        return ThreadLocalRandom.current().nextInt(notes);
+    }
+
+    @Benchmark
+    public Map<String, Object> latest() {
+        return jdbc.queryForMap(latestSql, corpus.firstNoteId() + randomNote());
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> historyPage() {
+        int after = ThreadLocalRandom.current().nextInt(revisionsPerNote);
+        return jdbc.queryForList(pageSql, corpus.firstNoteId() + randomNote(), after);
+    }
+
+    @Benchmark
+    public Map<String, Object> byId() {
+        int note = randomNote();
+        return jdbc.queryForMap(byIdSql, corpus.firstNoteId() + note, corpus.headRevisionIds()[note]);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> chain() {
+        int note = randomNote();
+        long noteId = corpus.firstNoteId() + note;
+        return jdbc.queryForList(chainSql, noteId, noteId, corpus.headRevisionIds()[note]);
+    }
+}
@@ -0,0 +1,106 @@
+package com.pleasenote.benchmark;
+
+import com.pleasenote.model.Note;
+import com.pleasenote.model.NoteRevision;
+import com.pleasenote.revision.RevisionStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Storage size and reconstruction latency of a heavily edited note.
+ *
+ * A snapshot interval of 1 stores every revision as a full copy, which is the
+ * pre-delta baseline. Stored sizes are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RevisionStorageBenchmark {
+
+    @Param({"200"})
+    public int noteSizeKb;
+
+    @Param({"500"})
+    public int edits;
+
+    @Param({"1", "8", "32", "128"})
+    public int snapshotInterval;
+
+    private RevisionStore store;
+    private List<NoteRevision> rows;
+    private NoteRevision latest;
+    private NoteRevision middle;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        rows = new ArrayList<>();
+        store = new RevisionStore(InMemoryRevisionRepository.create(rows), snapshotInterval);
+
+        Random random = new Random(7);
+        List<String> lines = new ArrayList<>();
+        int size = 0;
+        while (size < noteSizeKb * 1024) {
+            String line = randomLine(random);
+            lines.add(line);
+            size += line.length() + 1;
+        }
+
+        Note note = new Note();
+        note.setId(1L);
+        NoteRevision previous = store.append(note, null, String.join("\n", lines));
+        for (int i = 0; i < edits; i++) {
+            int at = random.nextInt(lines.size());
+            if (random.nextBoolean()) {
+                lines.set(at, randomLine(random));
+            } else {
+                lines.add(at, randomLine(random));
+            }
+            previous = store.append(note, previous, String.join("\n", lines));
+        }
+        latest = previous;
+        middle = rows.get(rows.size() / 2);
+
+        long stored = 0;
+        for (NoteRevision r : rows) {
+            stored += r.isSnapshot() ? r.getContent().getBytes(StandardCharsets.UTF_8).length : r.getDelta().length;
+        }
+        System.out.printf("%nsnapshotInterval=%d: %d revisions stored in %,d bytes%n",
+            snapshotInterval, rows.size(), stored);
+    }
+
+    private static String randomLine(Random random) {
+        StringBuilder line = new StringBuilder();
+        int words = 4 + random.nextInt(12);
+        for (int w = 0; w < words; w++) {
+            int length = 2 + random.nextInt(8);
+            for (int c = 0; c < length; c++) {
+                line.append((char) ('a' + random.nextInt(26)));
+            }
+            line.append(' ');
+        }
+        return line.toString();
+    }
+
+    @Benchmark
+    public String readLatest() {
+        return store.readContent(latest);
+    }
+
+    @Benchmark
+    public String readMiddle() {
+        return store.readContent(middle);
+    }
+
+    @Benchmark
+    public List<String> readFullHistory() {
+        return store.readContents(rows);
+    }
+}
@@ -0,0 +1,234 @@
+package com.pleasenote.benchmark;
+
+import com.pleasenote.security.JwtService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cold-start time and first-request latency of the packaged backend, started as
+ * a separate JVM {@code startup.runs} times per mode:
+ * <ul>
+ *   <li>{@code jar}: {@code java -jar} on the executable jar</li>
+ *   <li>{@code extracted}: the application extracted by the {@code cds} profile, without its archive</li>
+ *   <li>{@code cds}: the same with {@code -XX:SharedArchiveFile=application.jsa}</li>
+ * </ul>
+ * Startup is measured from process launch until the server answers HTTP at all,
+ * with any status, so nothing on the measured request paths is warmed up first.
+ * The first requests then list, create and read back the history of a note,
+ * so each mode also proves JWT authentication, security and the {@code User},
+ * {@code Note} and {@code NoteRevision} mappings work.
+ *
+ * Build the backend with {@code -Pcds} first, on the JDK this test runs on; the
+ * archive is only used by the JDK that wrote it.
+ */
+public final class StartupTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final String SECRET = "startup-test-secret-startup-test-secret-startup";
+    private static final String JAR = "backend-0.0.1-SNAPSHOT-exec.jar";
+    private static final String[] REQUESTS = {"list", "create", "history"};
+
+    private final int runs = Integer.getInteger("startup.runs", 5);
+    private final Path target = Path.of(System.getProperty("startup.backend-target", "../backend/target"));
+    private final HttpClient http = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+
+    private String url;
+    private String username;
+    private String password;
+    private String token;
+
+    public static void main(String[] args) throws Exception {
+        StartupTest test = new StartupTest();
+        EmbeddedPostgres postgres = test.database();
+        try {
+            for (String mode : System.getProperty("startup.modes", "jar,extracted,cds").split(",")) {
+                test.run(mode.trim());
+            }
+        } finally {
+            if (postgres != null) {
+                postgres.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Migrates the database once, so every start only validates the schema, and adds the test user.
+     */
+    private EmbeddedPostgres database() throws Exception {
+        EmbeddedPostgres postgres = null;
+        url = System.getProperty("bench.jdbc-url");
+        username = System.getProperty("bench.jdbc-user", "pleasenote");
+        password = System.getProperty("bench.jdbc-password", "pleasenote");
+        if (url == null) {
+            postgres = EmbeddedPostgres.start();
+            url = postgres.getJdbcUrl("postgres", "postgres");
+            username = "postgres";
+            password = "postgres";
+        }
+        Flyway.configure()
+            .dataSource(url, username, password)
+            .locations("classpath:db/migration")
+            .load()
+            .migrate();
+
+        String name = "startup" + System.nanoTime();
+        long userId;
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+             PreparedStatement insert = connection.prepareStatement(
+                 "INSERT INTO users (username, email, password_hash) VALUES (?, ?, 'unused') RETURNING id")) {
+            insert.setString(1, name);
+            insert.setString(2, name + "@example.com");
+            try (ResultSet rs = insert.executeQuery()) {
+                rs.next();
+                userId = rs.getLong(1);
+            }
+        }
+        token = new JwtService(SECRET, 3_600_000, 10).generateToken(userId, name);
+        return postgres;
+    }
+
+    private void run(String mode) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        Path directory = mode.equals("jar") ? target : target.resolve("cds");
+        if (mode.equals("cds")) {
+            command.add("-XX:SharedArchiveFile=application.jsa");
+        } else if (!mode.equals("jar") && !mode.equals("extracted")) {
+            throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+        if (!Files.exists(directory.resolve(JAR))
+            || mode.equals("cds") && !Files.exists(directory.resolve("application.jsa"))) {
+            throw new IllegalStateException(directory.resolve(JAR) + " not built; run ./mvnw -Pcds package in backend/");
+        }
+
+        long[] startup = new long[runs];
+        long[][] requests = new long[REQUESTS.length][runs];
+        for (int i = 0; i < runs; i++) {
+            int port = freePort();
+            List<String> started = new ArrayList<>(command);
+            started.addAll(List.of(
+                "-jar", JAR,
+                "--server.port=" + port,
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + username,
+                "--spring.datasource.password=" + password,
+                "--jwt.secret=" + SECRET,
+                "--jwt.expiration-ms=3600000",
+                "--logging.level.root=WARN"
+            ));
+            long launched = System.nanoTime();
+            Process process = new ProcessBuilder(started)
+                .directory(directory.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+            try {
+                String base = "http://localhost:" + port;
+                awaitServing(process, base);
+                startup[i] = System.nanoTime() - launched;
+                firstRequests(base, requests, i);
+            } finally {
+                process.destroy();
+                process.waitFor();
+            }
+        }
+
+        System.out.printf("%-10s startup p50 %6d ms (min %d, max %d)%n", mode,
+            median(startup) / 1_000_000, min(startup) / 1_000_000, max(startup) / 1_000_000);
+        for (int r = 0; r < REQUESTS.length; r++) {
+            System.out.printf("%-10s first %-7s p50 %6d ms (min %d, max %d)%n", mode, REQUESTS[r],
+                median(requests[r]) / 1_000_000, min(requests[r]) / 1_000_000, max(requests[r]) / 1_000_000);
+        }
+    }
+
+    private void awaitServing(Process process, String base) throws Exception {
+        HttpRequest probe = HttpRequest.newBuilder(URI.create(base + "/actuator/health")).build();
+        while (true) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Backend exited with " + process.exitValue());
+            }
+            try {
+                http.send(probe, HttpResponse.BodyHandlers.discarding());
+                return;
+            } catch (ConnectException e) {
+                // not listening yet
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private void firstRequests(String base, long[][] requests, int run) throws Exception {
+        long start = System.nanoTime();
+        expect(send(HttpRequest.newBuilder(URI.create(base + "/notes")).GET()), 200);
+        requests[0][run] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        HttpResponse<String> created = expect(send(HttpRequest.newBuilder(URI.create(base + "/notes"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(JSON.writeValueAsString(Map.of(
+                "title", "Startup note", "content", "First request after a cold start"))))), 201);
+        requests[1][run] = System.nanoTime() - start;
+
+        long noteId = JSON.readTree(created.body()).get("noteId").asLong();
+        start = System.nanoTime();
+        expect(send(HttpRequest.newBuilder(URI.create(base + "/notes/" + noteId + "/revisions")).GET()), 200);
+        requests[2][run] = System.nanoTime() - start;
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return http.send(request.header("Authorization", "Bearer " + token).build(),
+            HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpResponse<String> expect(HttpResponse<String> response, int status) {
+        if (response.statusCode() != status) {
+            throw new IllegalStateException("Unexpected " + response.statusCode() + " from "
+                + response.request().uri() + ": " + response.body());
+        }
+        return response;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static long min(long[] values) {
+        return Arrays.stream(values).min().orElse(0);
+    }
+
+    private static long max(long[] values) {
+        return Arrays.stream(values).max().orElse(0);
+    }
+}